@@ -32,6 +32,20 @@ public class SetCommand extends GenericCommand<KCell> {
 //
     }
 
+    /**
+     * Constructs a set command that has already been executed,
+     * changing the receiver from a given old state to a given new state.
+     *
+     * @param receiver  the given receiver
+     * @param oldState  the state before execution
+     * @param newState  the state after execution
+     */
+    SetCommand(final KCell receiver, final int oldState, final int newState) {
+        super(receiver, true);
+        this.oldState = oldState;
+        this.newState = newState;
+    }
+
 // Operations
     @Override
     public void execute() {
@@ -0,0 +1,164 @@
+package ypa.command;
+
+import java.util.Arrays;
+
+import ypa.model.KCell;
+import ypa.model.KPuzzle;
+
+/**
+ * A trail of cell state changes, for solvers and reasoners that undo
+ * many trial changes during search.
+ * It records each change as primitive values in parallel arrays, so that
+ * recording and undoing a change allocates nothing once the arrays have
+ * grown large enough.
+ * The changes are grouped into nested levels, which are undone as a whole.
+ * {@link SetCommand} objects are only built on request, for instance
+ * when a solver reports the commands that led to a solution.
+ */
+public class Trail {
+
+    /** The puzzle whose cells are changed. */
+    private final KPuzzle puzzle;
+
+    /** The id of the cell changed by each entry. */
+    private int[] cellIds;
+
+    /** The state of the cell before each entry. */
+    private int[] oldStates;
+
+    /** The state of the cell after each entry. */
+    private int[] newStates;
+
+    /** Number of entries. */
+    private int size;
+
+    /** The number of entries at the start of each open level. */
+    private int[] levelStarts;
+
+    /** Number of open levels. */
+    private int level;
+
+    // Representation invariants:
+    // 0 <= size <= cellIds.length == oldStates.length == newStates.length
+    // 0 <= levelStarts[0] <= ... <= levelStarts[level - 1] <= size
+    // entry i changed puzzle.getCellById(cellIds[i]) from oldStates[i] to newStates[i]
+
+    /**
+     * Constructs an empty trail for a given puzzle.
+     *
+     * @param puzzle the puzzle
+     * @throws IllegalArgumentException if {@code puzzle == null}
+     * @pre {@code puzzle != null}
+     */
+    public Trail(final KPuzzle puzzle) {
+        if (puzzle == null) {
+            throw new IllegalArgumentException(this.getClass().getSimpleName()
+                    + "().pre failed: puzzle == null");
+        }
+        this.puzzle = puzzle;
+        cellIds = new int[16];
+        oldStates = new int[16];
+        newStates = new int[16];
+        levelStarts = new int[16];
+    }
+
+    /**
+     * Gets the number of changes recorded.
+     *
+     * @return number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of open levels.
+     *
+     * @return number of open levels
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Opens a new level, to which subsequent changes belong.
+     *
+     * @modifies {@code this}
+     * @post {@code getLevel() == \old(getLevel()) + 1}
+     */
+    public void push() {
+        if (level == levelStarts.length) {
+            levelStarts = Arrays.copyOf(levelStarts, 2 * level);
+        }
+        levelStarts[level++] = size;
+    }
+
+    /**
+     * Sets the state of a given cell, and records the change.
+     *
+     * @param cell  the cell
+     * @param state the new state
+     * @modifies {@code this, cell}
+     * @post {@code cell.getState() == state && size() == \old(size()) + 1}
+     */
+    public void set(final KCell cell, final int state) {
+        if (size == cellIds.length) {
+            cellIds = Arrays.copyOf(cellIds, 2 * size);
+            oldStates = Arrays.copyOf(oldStates, 2 * size);
+            newStates = Arrays.copyOf(newStates, 2 * size);
+        }
+        cellIds[size] = cell.getId();
+        oldStates[size] = cell.getState();
+        newStates[size] = state;
+        ++size;
+        cell.setState(state);
+    }
+
+    /**
+     * Undoes the changes in the current level, in reverse order,
+     * keeping the level open.
+     *
+     * @throws IllegalStateException if no level is open
+     * @pre {@code getLevel() > 0}
+     * @modifies {@code this, puzzle}
+     */
+    public void undoLevel() throws IllegalStateException {
+        if (level == 0) {
+            throw new IllegalStateException(this.getClass().getSimpleName()
+                    + ".undoLevel().pre failed: no open level");
+        }
+        final int start = levelStarts[level - 1];
+        while (size != start) {
+            --size;
+            puzzle.getCellById(cellIds[size]).setState(oldStates[size]);
+        }
+    }
+
+    /**
+     * Undoes the changes in the current level, in reverse order,
+     * and closes the level.
+     *
+     * @throws IllegalStateException if no level is open
+     * @pre {@code getLevel() > 0}
+     * @modifies {@code this, puzzle}
+     * @post {@code getLevel() == \old(getLevel()) - 1}
+     */
+    public void pop() throws IllegalStateException {
+        undoLevel();
+        --level;
+    }
+
+    /**
+     * Gets a command equivalent to a recorded change.
+     * The command is in executed state, so that it can be reverted.
+     *
+     * @param index the index of the entry
+     * @return executed command that changed the cell of entry {@code index}
+     * @pre {@code 0 <= index < size()}
+     */
+    public SetCommand getCommand(final int index) {
+        return new SetCommand(puzzle.getCellById(cellIds[index]),
+                oldStates[index], newStates[index]);
+    }
+
+}
@@ -1,6 +1,7 @@
 package ypa.model;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
 
@@ -15,6 +16,15 @@ public abstract class AbstractGroup implements Iterable<KCell> {
     /** The cells in the group. */
     private final List<KCell> cells;
 
+    /**
+     * The store shared by all cells in the group,
+     * or null if the group is empty or its cells come from different stores.
+     */
+    private CellStore store;
+
+    /** The ids of the cells in the group, valid when {@code store != null}. */
+    private final BitSet memberIds;
+
     /** How often each cell's state occurs in the group. */
     private final Histogram counts;
 
@@ -25,16 +35,31 @@ public abstract class AbstractGroup implements Iterable<KCell> {
     // (\forall state : CellState.values();
     // counts[state] == (\num_of i; cells.has(i);
     // cells.get(i).getState == state))
+    // store != null ==> (\forall KCell cell;;
+    //   cells.contains(cell) == (cell.getStore() == store && memberIds.get(cell.getId())))
 
     /**
      * Constructs an empty group.
      */
     public AbstractGroup() {
         cells = new ArrayList<>();
+        memberIds = new BitSet();
         counts = new Histogram();
         total = 0;
     }
 
+    /**
+     * Constructs an empty group, with room to count states up to a given maximum.
+     *
+     * @param maxState the largest state expected
+     */
+    public AbstractGroup(final int maxState) {
+        cells = new ArrayList<>();
+        memberIds = new BitSet();
+        counts = new Histogram(maxState);
+        total = 0;
+    }
+
     /**
      * Gets the total value of all cells in the group.
      *
@@ -51,6 +76,9 @@ public abstract class AbstractGroup implements Iterable<KCell> {
      * @return whether {@code this} contains {@code cell}
      */
     public boolean contains(final KCell cell) {
+        if (store != null) {
+            return cell.getStore() == store && memberIds.get(cell.getId());
+        }
         return cells.contains(cell);
     }
 
@@ -62,6 +90,13 @@ public abstract class AbstractGroup implements Iterable<KCell> {
      * @post {@code this == \old(this + [cell])}
      */
     void add(final KCell cell) {
+        if (cells.isEmpty()) {
+            store = cell.getStore();
+        } else if (cell.getStore() != store) {
+            // cells from different stores; fall back to scanning
+            store = null;
+        }
+        memberIds.set(cell.getId());
         cells.add(cell);
         int state = cell.getState();
         counts.adjust(state, +1);
@@ -70,6 +105,15 @@ public abstract class AbstractGroup implements Iterable<KCell> {
         }
     }
 
+    /**
+     * Makes room to count states up to a given maximum without allocating.
+     *
+     * @param maxState the largest state expected
+     */
+    void reserve(final int maxState) {
+        counts.reserve(maxState);
+    }
+
     /**
      * Updates this group when a cell is about to change state.
      *
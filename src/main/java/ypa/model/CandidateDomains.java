@@ -0,0 +1,298 @@
+package ypa.model;
+
+import java.util.BitSet;
+
+/**
+ * The candidate domains of the cells in a grid: for each empty cell,
+ * the numbers that can still be placed in it, and for each number, the
+ * empty cells in which it can still be placed.
+ * Number {@code n} is a candidate for empty cell {@code c} when
+ * <ul>
+ * <li>{@code 1 <= n <= maxNumber} and {@code n} is not placed anywhere;
+ * <li>if {@code n - 1} is placed, then {@code c} is adjacent to its holder;
+ * <li>if {@code n + 1} is placed, then {@code c} is adjacent to its holder.
+ * </ul>
+ * Here, the holder of a number is the cell given by
+ * {@link KGrid#getCellWithNumber(int)}.
+ * <p>
+ * The domains are kept up to date by the grid on each change of a cell state,
+ * from the time they are requested until they are released;
+ * see {@link KGrid#getDomains()}.
+ * Each change only recomputes the numbers consecutive to the old and new
+ * state of the changed cell, so undoing a change is handled in the same way
+ * as doing it, and costs the same.
+ */
+public class CandidateDomains {
+
+    /** The grid whose domains are kept. */
+    private final KGrid grid;
+
+    /** The largest number in the domains. */
+    private final int maxNumber;
+
+    /** The candidate numbers of each cell, by cell id. */
+    private final BitSet[] valuesByCell;
+
+    /** The ids of the candidate cells of each number, by number. */
+    private final BitSet[] cellsByValue;
+
+    /** The ids of the empty cells. */
+    private final BitSet emptyCells;
+
+    // Representation invariants:
+    // valuesByCell.length == number of cells in grid
+    // cellsByValue.length == maxNumber + 1, and cellsByValue[0] is empty
+    // valuesByCell[id].get(n) <==> cellsByValue[n].get(id)
+    //   <==> n is a candidate for the cell with id, as defined above
+    // emptyCells.get(id) <==> the cell with id is empty
+
+    /**
+     * Constructs the domains of a given grid, from its current state.
+     *
+     * @param grid      the grid
+     * @param maxNumber the largest number in the domains
+     * @pre {@code grid != null && 0 <= maxNumber}
+     */
+    CandidateDomains(final KGrid grid, final int maxNumber) {
+        this.grid = grid;
+        this.maxNumber = maxNumber;
+        final int size = (grid.getRowCount() + 1) * grid.getColumnCount();
+        valuesByCell = new BitSet[size];
+        for (int id = 0; id != size; ++id) {
+            valuesByCell[id] = new BitSet(maxNumber + 1);
+        }
+        cellsByValue = new BitSet[maxNumber + 1];
+        for (int n = 0; n <= maxNumber; ++n) {
+            cellsByValue[n] = new BitSet(size);
+        }
+        emptyCells = new BitSet(size);
+        for (KCell cell : grid) {
+            if (cell.isEmpty()) {
+                emptyCells.set(cell.getId());
+            }
+        }
+        for (int n = 1; n <= maxNumber; ++n) {
+            recompute(n);
+        }
+    }
+
+    /**
+     * Gets the largest number in the domains.
+     *
+     * @return the largest number
+     */
+    public int getMaxNumber() {
+        return maxNumber;
+    }
+
+    /**
+     * Returns whether a given number is a candidate for a given cell.
+     *
+     * @param cell   the cell
+     * @param number the number
+     * @return whether {@code number} is a candidate for {@code cell}
+     * @pre {@code cell} belongs to the grid
+     */
+    public boolean isCandidate(final KCell cell, final int number) {
+        return number >= 0 && valuesByCell[cell.getId()].get(number);
+    }
+
+    /**
+     * Gets the number of candidates for a given cell.
+     *
+     * @param cell the cell
+     * @return number of candidates for {@code cell}, 0 if it is not empty
+     * @pre {@code cell} belongs to the grid
+     */
+    public int getCandidateCount(final KCell cell) {
+        return valuesByCell[cell.getId()].cardinality();
+    }
+
+    /**
+     * Gets the smallest candidate for a given cell that is at least a
+     * given number, so as to iterate over the candidates without allocation.
+     *
+     * @param cell the cell
+     * @param from the number to start from
+     * @return the smallest candidate {@code >= from}, or -1 if there is none
+     * @pre {@code cell} belongs to the grid and {@code 0 <= from}
+     */
+    public int nextCandidate(final KCell cell, final int from) {
+        return valuesByCell[cell.getId()].nextSetBit(from);
+    }
+
+    /**
+     * Gets the candidates for a given cell.
+     *
+     * @param cell the cell
+     * @return a copy of the candidate numbers of {@code cell}
+     * @pre {@code cell} belongs to the grid
+     */
+    public BitSet getCandidates(final KCell cell) {
+        return (BitSet) valuesByCell[cell.getId()].clone();
+    }
+
+    /**
+     * Gets the number of cells in which a given number can be placed.
+     *
+     * @param number the number
+     * @return number of candidate cells for {@code number},
+     *     0 if it is placed or out of range
+     */
+    public int getCandidateCellCount(final int number) {
+        if (number < 1 || number > maxNumber) {
+            return 0;
+        }
+        return cellsByValue[number].cardinality();
+    }
+
+    /**
+     * Gets the cells in which a given number can be placed.
+     *
+     * @param number the number
+     * @return a copy of the ids of the candidate cells for {@code number}
+     */
+    public BitSet getCandidateCells(final int number) {
+        if (number < 1 || number > maxNumber) {
+            return new BitSet();
+        }
+        return (BitSet) cellsByValue[number].clone();
+    }
+
+    /**
+     * Gets the smallest id of a candidate cell for a given number that is
+     * at least a given id, so as to iterate over those cells without allocation.
+     *
+     * @param number the number
+     * @param from   the id to start from
+     * @return the smallest id {@code >= from} of a cell in which {@code number}
+     *     can be placed, or -1 if there is none
+     * @pre {@code 0 <= from}
+     */
+    public int nextCandidateCell(final int number, final int from) {
+        if (number < 1 || number > maxNumber) {
+            return -1;
+        }
+        return cellsByValue[number].nextSetBit(from);
+    }
+
+    /**
+     * Brings the domains up to date after a cell has changed state.
+     *
+     * @param cell     the cell that changed, in its new state
+     * @param oldState the state of {@code cell} before the change
+     * @modifies {@code this}
+     */
+    void changed(final KCell cell, final int oldState) {
+        final int id = cell.getId();
+        final int newState = cell.getState();
+        if (cell.isEmpty() && !emptyCells.get(id)) {
+            emptyCells.set(id);
+            for (int n = 1; n <= maxNumber; ++n) {
+                if (fits(id, n)) {
+                    valuesByCell[id].set(n);
+                    cellsByValue[n].set(id);
+                }
+            }
+        } else if (!cell.isEmpty() && emptyCells.get(id)) {
+            emptyCells.clear(id);
+            final BitSet values = valuesByCell[id];
+            for (int n = values.nextSetBit(0); n >= 0; n = values.nextSetBit(n + 1)) {
+                cellsByValue[n].clear(id);
+            }
+            values.clear();
+        }
+        for (int delta = -1; delta <= 1; ++delta) {
+            recompute(oldState + delta);
+            if (newState != oldState) {
+                recompute(newState + delta);
+            }
+        }
+    }
+
+    /**
+     * Recomputes the candidate cells of a given number.
+     * If a neighbouring number is placed, only the cells adjacent to its
+     * holder are considered; otherwise, all empty cells are.
+     *
+     * @param number the number, possibly out of range
+     * @modifies {@code this}
+     */
+    private void recompute(final int number) {
+        if (number < 1 || number > maxNumber) {
+            return;
+        }
+        final BitSet candidates = cellsByValue[number];
+        for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+            valuesByCell[id].clear(number);
+        }
+        candidates.clear();
+        if (grid.getCellWithNumber(number) != null) {
+            return;
+        }
+        KCell anchor = grid.getCellWithNumber(number - 1);
+        if (anchor == null) {
+            anchor = grid.getCellWithNumber(number + 1);
+        }
+        if (anchor == null) {
+            candidates.or(emptyCells);
+        } else {
+            collectAround(anchor, number, candidates);
+        }
+        for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+            valuesByCell[id].set(number);
+        }
+    }
+
+    /**
+     * Adds the empty cells adjacent to a given cell in which a given number fits.
+     *
+     * @param anchor     the cell to look around
+     * @param number     the number, in range
+     * @param candidates the set to add the cell ids to
+     * @modifies {@code candidates}
+     */
+    private void collectAround(final KCell anchor, final int number, final BitSet candidates) {
+        final int end = grid.getNeighbourEnd(anchor.getId());
+        for (int k = grid.getNeighbourStart(anchor.getId()); k != end; ++k) {
+            final int id = grid.getNeighbourId(k);
+            if (emptyCells.get(id) && fits(id, number)) {
+                candidates.set(id);
+            }
+        }
+    }
+
+    /**
+     * Returns whether a given number fits in a given empty cell,
+     * according to the candidate rule.
+     *
+     * @param id     the id of an empty cell
+     * @param number the number, in range
+     * @return whether {@code number} is a candidate for cell {@code id}
+     */
+    private boolean fits(final int id, final int number) {
+        return grid.getCellWithNumber(number) == null
+                && isAdjacentToHolder(id, number - 1)
+                && isAdjacentToHolder(id, number + 1);
+    }
+
+    /**
+     * Returns whether a given cell is adjacent to the holder of a given number,
+     * or that number is not placed.
+     *
+     * @param id     the cell id
+     * @param number the number
+     * @return whether {@code number} is unplaced or its holder is next to {@code id}
+     */
+    private boolean isAdjacentToHolder(final int id, final int number) {
+        final KCell holder = grid.getCellWithNumber(number);
+        if (holder == null) {
+            return true;
+        }
+        final int nColumns = grid.getColumnCount();
+        final int other = holder.getId();
+        return Math.abs(id / nColumns - other / nColumns) <= 1
+                && Math.abs(id % nColumns - other % nColumns) <= 1;
+    }
+
+}
@@ -0,0 +1,194 @@
+package ypa.model;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Flat storage for the cells of a grid: a structure of arrays indexed by
+ * cell id, holding the states, lock flags, locations, and group membership.
+ * A {@link KCell} is a thin view on one entry of a store.
+ * <p>
+ * Group membership is kept as one linked list of groups per cell, threaded
+ * through parallel link arrays, so that no per-cell collection is needed.
+ */
+final class CellStore {
+
+    /** Link value marking the end of a membership list. */
+    private static final int NONE = -1;
+
+    /** The state of each cell. */
+    private final int[] states;
+
+    /** The lock flag of each cell. */
+    private final boolean[] locks;
+
+    /** The location of each cell, if any. */
+    private final Location[] locations;
+
+    /** The first membership link of each cell, or {@code NONE}. */
+    private final int[] firstLink;
+
+    /** The last membership link of each cell, or {@code NONE}. */
+    private final int[] lastLink;
+
+    /** The link following each link, or {@code NONE}. */
+    private int[] nextLink;
+
+    /** The group of each link. */
+    private AbstractGroup[] linkGroup;
+
+    /** Number of links in use. */
+    private int linkCount;
+
+    /** The grid owning this store, if any. */
+    private KGrid grid;
+
+    // Representation invariants:
+    // all per-cell arrays have length size()
+    // the membership list of cell id is
+    //   firstLink[id], nextLink[firstLink[id]], ..., lastLink[id]
+    // 0 <= linkCount <= nextLink.length == linkGroup.length
+
+    /**
+     * Constructs a store for a given number of cells, all in a given state.
+     *
+     * @param size  the number of cells
+     * @param state the initial state of every cell
+     * @pre {@code 0 <= size && KCell.BLOCKED <= state}
+     */
+    CellStore(final int size, final int state) {
+        states = new int[size];
+        Arrays.fill(states, state);
+        locks = new boolean[size];
+        locations = new Location[size];
+        firstLink = new int[size];
+        Arrays.fill(firstLink, NONE);
+        lastLink = new int[size];
+        Arrays.fill(lastLink, NONE);
+        nextLink = new int[size];
+        linkGroup = new AbstractGroup[size];
+        linkCount = 0;
+    }
+
+    /**
+     * Gets the number of cells in this store.
+     *
+     * @return number of cells
+     */
+    int size() {
+        return states.length;
+    }
+
+    int getState(final int id) {
+        return states[id];
+    }
+
+    void setState(final int id, final int state) {
+        states[id] = state;
+    }
+
+    boolean isLocked(final int id) {
+        return locks[id];
+    }
+
+    void setLock(final int id, final boolean isLocked) {
+        locks[id] = isLocked;
+    }
+
+    Location getLocation(final int id) {
+        return locations[id];
+    }
+
+    void setLocation(final int id, final Location location) {
+        locations[id] = location;
+    }
+
+    KGrid getGrid() {
+        return grid;
+    }
+
+    void setGrid(final KGrid grid) {
+        this.grid = grid;
+    }
+
+    /**
+     * Appends a group to the membership list of a cell.
+     *
+     * @param id    the cell id
+     * @param group the group to add
+     * @modifies {@code this}
+     */
+    void addGroup(final int id, final AbstractGroup group) {
+        if (linkCount == nextLink.length) {
+            final int capacity = Math.max(4, 2 * linkCount);
+            nextLink = Arrays.copyOf(nextLink, capacity);
+            linkGroup = Arrays.copyOf(linkGroup, capacity);
+        }
+        final int link = linkCount++;
+        nextLink[link] = NONE;
+        linkGroup[link] = group;
+        if (lastLink[id] == NONE) {
+            firstLink[id] = link;
+        } else {
+            nextLink[lastLink[id]] = link;
+        }
+        lastLink[id] = link;
+    }
+
+    /**
+     * Returns whether a cell is a member of a given group.
+     *
+     * @param id    the cell id
+     * @param group the group to check
+     * @return whether {@code group} occurs in the membership list of {@code id}
+     */
+    boolean isMember(final int id, final AbstractGroup group) {
+        for (int link = firstLink[id]; link != NONE; link = nextLink[link]) {
+            if (linkGroup[link] == group) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Informs all groups of a cell that the cell is about to change state.
+     *
+     * @param cell     the view of the cell, in its old state
+     * @param newState the new state
+     */
+    void updateGroups(final KCell cell, final int newState) {
+        for (int link = firstLink[cell.getId()]; link != NONE; link = nextLink[link]) {
+            linkGroup[link].update(cell, newState);
+        }
+    }
+
+    /**
+     * Gets the groups of a cell, in the order in which they were added.
+     *
+     * @param id the cell id
+     * @return the membership list of {@code id}
+     */
+    Iterable<AbstractGroup> groups(final int id) {
+        return () -> new Iterator<AbstractGroup>() {
+            private int link = firstLink[id];
+
+            @Override
+            public boolean hasNext() {
+                return link != NONE;
+            }
+
+            @Override
+            public AbstractGroup next() {
+                if (link == NONE) {
+                    throw new NoSuchElementException();
+                }
+                final AbstractGroup group = linkGroup[link];
+                link = nextLink[link];
+                return group;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,143 @@
+package ypa.model;
+
+import java.util.BitSet;
+
+/**
+ * Distance windows between the placed numbers of a grid.
+ * Consecutive numbers are in adjacent cells, diagonals included,
+ * so number {@code v} can only be in a cell whose king-move (Chebyshev)
+ * distance to the holder of a placed number {@code k} is at most
+ * {@code |v - k|}.
+ * It suffices to check this for the nearest placed numbers below and above
+ * {@code v}: by the triangle inequality, the windows of placed numbers
+ * further away are implied by these in any completion of the grid.
+ * <p>
+ * The set of placed numbers is kept up to date by the grid on each change
+ * of a cell state, so that the nearest placed numbers are found quickly.
+ */
+public class DistanceWindows {
+
+    /** The grid whose placed numbers are tracked. */
+    private final KGrid grid;
+
+    /** The largest number considered. */
+    private final int maxNumber;
+
+    /** The placed numbers. */
+    private final BitSet placed;
+
+    // Representation invariant:
+    // placed.get(n) <==> 1 <= n <= maxNumber && grid.getCellWithNumber(n) != null
+
+    /**
+     * Constructs the windows of a given grid, from its current state.
+     *
+     * @param grid      the grid
+     * @param maxNumber the largest number considered
+     * @pre {@code grid != null && 0 <= maxNumber}
+     */
+    DistanceWindows(final KGrid grid, final int maxNumber) {
+        this.grid = grid;
+        this.maxNumber = maxNumber;
+        placed = new BitSet(maxNumber + 1);
+        for (int n = 1; n <= maxNumber; ++n) {
+            placed.set(n, grid.getCellWithNumber(n) != null);
+        }
+    }
+
+    /**
+     * Returns whether a given number can be placed in a given cell as far as
+     * the distances to the nearest placed numbers below and above it go.
+     * Whether the number is placed elsewhere already is not considered.
+     *
+     * @param cell   the cell
+     * @param number the number
+     * @return whether {@code number} is in range and within the distance
+     *     windows of its nearest placed numbers, when put in {@code cell}
+     * @pre {@code cell} belongs to the grid
+     */
+    public boolean isReachable(final KCell cell, final int number) {
+        if (number < 1 || number > maxNumber) {
+            return false;
+        }
+        final int lower = getLowerAnchor(number);
+        if (lower > 0 && distance(cell, lower) > number - lower) {
+            return false;
+        }
+        final int upper = getUpperAnchor(number);
+        return upper < 0 || distance(cell, upper) <= upper - number;
+    }
+
+    /**
+     * Gets the nearest placed number below a given number, whose holder
+     * bounds the window of that number from below.
+     *
+     * @param number the number
+     * @return the largest placed number less than {@code number}, or -1 if none
+     * @pre {@code 1 <= number <= maxNumber + 1}
+     */
+    public int getLowerAnchor(final int number) {
+        return placed.previousSetBit(number - 1);
+    }
+
+    /**
+     * Gets the nearest placed number above a given number, whose holder
+     * bounds the window of that number from above.
+     *
+     * @param number the number
+     * @return the smallest placed number greater than {@code number}, or -1 if none
+     * @pre {@code 0 <= number <= maxNumber}
+     */
+    public int getUpperAnchor(final int number) {
+        return placed.nextSetBit(number + 1);
+    }
+
+    /**
+     * Gets the largest number considered.
+     *
+     * @return the largest number
+     */
+    public int getMaxNumber() {
+        return maxNumber;
+    }
+
+    /**
+     * Gets the king-move distance from a given cell to the holder of a given
+     * placed number.
+     *
+     * @param cell   the cell
+     * @param number the placed number
+     * @return Chebyshev distance between {@code cell} and the holder of {@code number}
+     */
+    private int distance(final KCell cell, final int number) {
+        final Location from = cell.getLocation();
+        final Location to = grid.getCellWithNumber(number).getLocation();
+        return Math.max(Math.abs(from.getRow() - to.getRow()),
+                Math.abs(from.getColumn() - to.getColumn()));
+    }
+
+    /**
+     * Brings the set of placed numbers up to date after a cell has changed state.
+     *
+     * @param cell     the cell that changed, in its new state
+     * @param oldState the state of {@code cell} before the change
+     * @modifies {@code this}
+     */
+    void changed(final KCell cell, final int oldState) {
+        track(oldState);
+        track(cell.getState());
+    }
+
+    /**
+     * Records whether a given number is placed.
+     *
+     * @param number the number, possibly out of range
+     * @modifies {@code this}
+     */
+    private void track(final int number) {
+        if (1 <= number && number <= maxNumber) {
+            placed.set(number, grid.getCellWithNumber(number) != null);
+        }
+    }
+
+}
@@ -1,6 +1,7 @@
 package ypa.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Scanner;
@@ -25,7 +26,14 @@ public class HGrid extends AbstractGroup implements Iterable<HCell> {
     /** Number of columns. */
     private final int nColumns;
 
-    private int maxNumber;
+    /** The last number of the sequence, i.e. the number of non-blocked cells. */
+    private final int maxNumber;
+
+    /**
+     * Position index: {@code positions[n]} is {@code row * nColumns + column}
+     * of the cell holding number {@code n}, rebuilt by each validation.
+     */
+    private final int[] positions;
 
     // TODO: Consider merging nRows, nColumns into EnumMap<Direction, Integer>
 
@@ -48,8 +56,6 @@ public class HGrid extends AbstractGroup implements Iterable<HCell> {
         nColumns = scanner.nextInt();
         scanner.nextLine(); // Move to the next line after reading integers
 
-        maxNumber = calculateMaxNumber();
-
         grid = new ArrayList<>(nRows);
 
         for (int rowIndex = 0; rowIndex < nRows; rowIndex++) {
@@ -68,6 +74,9 @@ public class HGrid extends AbstractGroup implements Iterable<HCell> {
             }
             grid.add(row);
         }
+
+        maxNumber = countOpenCells();
+        positions = new int[maxNumber + 1];
     }
 
     /**
@@ -120,96 +129,66 @@ public class HGrid extends AbstractGroup implements Iterable<HCell> {
     }
 
     /**
-     * Checks whether this grid is valid for a Hidato puzzle.
-     * 
-     * @return whether this grid is a valid Hidato configuration
+     * Checks whether the numbers in this grid are consistent so far, that is,
+     * whether each number is between {@code 1} and the number of non-blocked
+     * cells, and occurs at most once. Empty cells are allowed.
+     *
+     * @return whether this grid is a valid partial Hidato configuration
+     * @see #isCompletePath()
      */
     @Override
     public boolean isValid() {
-        // Step 1: Find the starting cell (cell with number 1)
-        HCell startCell = findStartCell();
-        if (startCell == null) {
-            return false; // No starting cell, puzzle is invalid
-        }
-
-        // Step 2: Traverse the grid from the starting cell, checking for a contiguous
-        // sequence
-        return isContiguousSequence(startCell, 1);
+        return indexPositions();
     }
 
     /**
-     * Finds the starting cell of the Hidato puzzle (cell with number 1).
-     * 
-     * @return the starting cell, or null if not found
+     * Checks whether this grid holds a complete Hidato path, that is,
+     * whether it holds the numbers {@code 1} up to the number of non-blocked
+     * cells, each exactly once, such that consecutive numbers are in
+     * horizontally, vertically, or diagonally adjacent cells.
+     * Runs in time linear in the number of cells, without recursion.
+     *
+     * @return whether this grid is a solved Hidato configuration
      */
-    private HCell findStartCell() {
-        for (List<HCell> row : grid) {
-            for (HCell cell : row) {
-                if (cell.getState() == 1) {
-                    return cell;
-                }
+    public boolean isCompletePath() {
+        if (maxNumber == 0 || !isFull() || !indexPositions()) {
+            return false;
+        }
+        // maxNumber distinct numbers in maxNumber open cells: all are placed
+        for (int number = 2; number <= maxNumber; number++) {
+            final int previous = positions[number - 1];
+            final int current = positions[number];
+            if (Math.abs(previous / nColumns - current / nColumns) > 1
+                    || Math.abs(previous % nColumns - current % nColumns) > 1) {
+                return false;
             }
         }
-        return null;
+        return true;
     }
 
     /**
-     * Checks if the numbers form a contiguous sequence from a given cell.
+     * Fills the position index from the current cell states, in one pass.
      * 
-     * @param cell           the current cell
-     * @param expectedNumber the expected number for this cell
-     * @return true if the sequence is contiguous, false otherwise
+     * @return whether every number in a non-blocked, non-empty cell is in
+     *     {@code 1 .. maxNumber} and occurs only once
+     * @modifies {@code positions}
      */
-    private boolean isContiguousSequence(HCell cell, int expectedNumber) {
-        if (!isValidCell(cell, expectedNumber)) {
-            return false;
-        }
-
-        if (isEndOfSequence(expectedNumber)) {
-            return true;
-        }
-
-        return exploreAdjacentCells(cell, expectedNumber);
-    }
-
-    private boolean isValidCell(HCell cell, int expectedNumber) {
-        return cell != null && !cell.isBlocked() && !cell.isEmpty() 
-                && cell.getState() == expectedNumber;
-    }
-
-    private boolean isEndOfSequence(int expectedNumber) {
-        return expectedNumber == calculateMaxNumber();
-    }
-
-    private boolean exploreAdjacentCells(HCell cell, int expectedNumber) {
-        for (int dRow = -1; dRow <= 1; dRow++) {
-            for (int dCol = -1; dCol <= 1; dCol++) {
-                if (dRow == 0 && dCol == 0) {
-                    continue; // Skip the current cell
+    private boolean indexPositions() {
+        Arrays.fill(positions, -1);
+        for (int rowIndex = 0; rowIndex < nRows; rowIndex++) {
+            final List<HCell> row = grid.get(rowIndex);
+            for (int columnIndex = 0; columnIndex < row.size(); columnIndex++) {
+                final int state = row.get(columnIndex).getState();
+                if (state == HCell.BLOCKED || state == HCell.EMPTY) {
+                    continue;
                 }
-                int nextRow = cell.getLocation().getRow() + dRow;
-                int nextCol = cell.getLocation().getColumn() + dCol;
-                if (isValidCoordinate(nextRow, nextCol)) {
-                    HCell nextCell = getCell(nextRow, nextCol);
-                    if (isContiguousSequence(nextCell, expectedNumber + 1)) {
-                        return true;
-                    }
+                if (state < 1 || state > maxNumber || positions[state] != -1) {
+                    return false; // out of range, or duplicate
                 }
+                positions[state] = rowIndex * nColumns + columnIndex;
             }
         }
-        return false;
-    }
-
-    /**
-     * Checks if the given row and column coordinates are within the grid
-     * boundaries.
-     * 
-     * @param row the row index
-     * @param col the column index
-     * @return true if the coordinates are valid, false otherwise
-     */
-    private boolean isValidCoordinate(int row, int col) {
-        return row >= 0 && row < nRows && col >= 0 && col < nColumns;
+        return true;
     }
 
     /**
@@ -248,22 +227,21 @@ public class HGrid extends AbstractGroup implements Iterable<HCell> {
     }
 
     /**
-     * Calculates the maximum number present in the Hidato grid.
-     * This number represents the highest number in the sequence that needs to be
-     * achieved to solve the puzzle.
+     * Counts the non-blocked cells, which is the length of the sequence
+     * that needs to be achieved to solve the puzzle.
      * 
-     * @return The maximum number in the grid.
+     * @return the number of non-blocked cells
      */
-    private int calculateMaxNumber() {
-        int maxNum = 0;
+    private int countOpenCells() {
+        int count = 0;
         for (List<HCell> row : grid) {
             for (HCell cell : row) {
-                if (!cell.isBlocked() && cell.getState() > maxNum) {
-                    maxNum = cell.getState();
+                if (!cell.isBlocked()) {
+                    count++;
                 }
             }
         }
-        return maxNum;
+        return count;
     }
 
 }
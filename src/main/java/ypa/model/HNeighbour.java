@@ -1,78 +1,135 @@
 package ypa.model;
 
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
 /**
  * This class represents a group of neighboring cells around a specific cell.
  * It extends from AbstractGroup and is used to manage and interact with
  * neighboring cells.
+ * The neighbouring cells are not stored in the group itself, but read from
+ * the adjacency table of the grid. Likewise, their states are not counted
+ * as they change, but read on request, so changes cost nothing here.
  */
 public class HNeighbour extends AbstractGroup {
 
     private final KCell cell; // The central cell around which neighbors are determined
-    private final Location location; // Location of the central cell
     final int maxNum; // A parameter used for validation purposes
 
     /**
-     * Constructs an HNeighbour instance with a specified cell, location, and
-     * maximum number.
+     * Constructs an HNeighbour instance with a specified cell and maximum number.
+     * The neighbouring cells are those adjacent to {@code cell} in the
+     * adjacency table of its grid, which must already have been built.
      * 
      * @param cell   The central cell for which neighbors are to be determined.
-     * @param loc    The location of the cell.
      * @param maxNum The maximum number used in validation checks.
      */
-    public HNeighbour(final KCell cell, final Location loc, final int maxNum,
-            final int maxRow, final int maxCol) {
+    public HNeighbour(final KCell cell, final int maxNum) {
+        super();
         this.cell = cell;
-        this.location = cell.getLocation();
         this.maxNum = maxNum;
+        cell.add(this);
+    }
 
-        int row = location.getRow();
-        int column = location.getColumn();
+    /**
+     * Returns the central cell around which this group of neighbours is defined.
+     */
+    public KCell getCell() {
+        return cell;
+    }
 
-        setNeighbours(row, column, maxRow + 1, maxCol);
-        cell.add(this);
+    /**
+     * Returns whether a given cell is one of the neighbouring cells.
+     */
+    @Override
+    public boolean contains(final KCell other) {
+        final KGrid grid = this.cell.getGrid();
+        if (other.getGrid() != grid) {
+            return false;
+        }
+        final int end = grid.getNeighbourEnd(this.cell.getId());
+        for (int k = grid.getNeighbourStart(this.cell.getId()); k != end; ++k) {
+            if (grid.getNeighbourId(k) == other.getId()) {
+                return true;
+            }
+        }
+        return false;
+    }
 
+    /**
+     * Returns the number of neighbouring cells.
+     */
+    @Override
+    public int getCount() {
+        final KGrid grid = this.cell.getGrid();
+        return grid.getNeighbourEnd(this.cell.getId()) - grid.getNeighbourStart(this.cell.getId());
     }
 
     /**
-     * Sets the neighboring cells of the central cell.
-     * 
-     * @param row      The row index of the central cell.
-     * @param column   The column index of the central cell.
-     * @param nRows    The total number of rows in the grid.
-     * @param nColumns The total number of columns in the grid.
-     */
-    private void setNeighbours(int row, int column, int nRows, int nColumns) {
-        // Define offsets in a two-dimensional array
-        int[][] offsets = {
-                { -1, -1 }, { -1, 0 }, { -1, 1 },
-                { 0, -1 }, { 0, 1 },
-                { 1, -1 }, { 1, 0 }, { 1, 1 }
-        };
+     * Returns the total value of the neighbouring cells, from their states.
+     */
+    @Override
+    public int getTotal() {
+        final KGrid grid = this.cell.getGrid();
+        final int end = grid.getNeighbourEnd(this.cell.getId());
+        int result = 0;
+        for (int k = grid.getNeighbourStart(this.cell.getId()); k != end; ++k) {
+            // neighbouring cells are not blocked
+            result += grid.getCellById(grid.getNeighbourId(k)).getState();
+        }
+        return result;
+    }
 
-        for (int[] offset : offsets) {
-            int newRow = row + offset[0];
-            int newColumn = column + offset[1];
-
-            // System.out.println(newRow + " -- " + newColumn);
-            // Check bounds and, if applicable, whether the cell is blocked
-            if (newRow >= 0 && newRow < nRows && newColumn >= 0 && newColumn < nColumns) {
-                Location newLocation = new Location(newRow, newColumn);
-                KCell newCell = cell.getGrid().getCell(newLocation);
-                if (!newCell.isBlocked()) {
-                    // System.out.println(row + " / " + column + " --- " + newCell.getLocation());
-                    this.add(newCell);
-                }
-                // System.out.println(newCell.getLocation() + "*");
+    /**
+     * Returns the number of neighbouring cells with a given state,
+     * from their states.
+     */
+    @Override
+    public int getStateCount(final int state) {
+        final KGrid grid = this.cell.getGrid();
+        final int end = grid.getNeighbourEnd(this.cell.getId());
+        int result = 0;
+        for (int k = grid.getNeighbourStart(this.cell.getId()); k != end; ++k) {
+            if (grid.getCellById(grid.getNeighbourId(k)).getState() == state) {
+                ++result;
             }
         }
-        // System.out.println("--------------------");
+        return result;
     }
 
     /**
-     * Returns the central cell around which this group of neighbours is defined.
+     * Does nothing, since the states of the neighbouring cells are read on
+     * request. The group is registered with its central cell only so that it
+     * can be found among that cell's groups.
      */
-    public KCell getCell() {
-        return cell;
+    @Override
+    public void update(final KCell cell, final int newState) {
+        // nothing is kept up to date
+    }
+
+    /**
+     * Returns an iterator over the neighbouring cells.
+     */
+    @Override
+    public Iterator<KCell> iterator() {
+        final KGrid grid = this.cell.getGrid();
+        final int end = grid.getNeighbourEnd(this.cell.getId());
+        return new Iterator<KCell>() {
+            private int k = grid.getNeighbourStart(cell.getId());
+
+            @Override
+            public boolean hasNext() {
+                return k != end;
+            }
+
+            @Override
+            public KCell next() {
+                if (k == end) {
+                    throw new NoSuchElementException();
+                }
+                return grid.getCellById(grid.getNeighbourId(k++));
+            }
+        };
     }
 
     /**
@@ -106,33 +163,19 @@ public class HNeighbour extends AbstractGroup {
      * Validates whether neighboring cells comply with the puzzle rules.
      */
     private boolean isNeighbouringCellsValid(KGrid grid) {
-        boolean hasSmaller = hasNeighboringCellWithState(this.cell.getState() - 1);
-        boolean hasBigger = hasNeighboringCellWithState(this.cell.getState() + 1);
-
-        if (!isCellValid(hasSmaller, this.cell.getState() - 1, grid)) {
-            return false;
-        }
-
-        if (!isCellValid(hasBigger, this.cell.getState() + 1, grid) && this.cell.getState() != 0) {
-            return false;
+        if (this.cell.isEmpty()) {
+            return true;
         }
-
-        return true;
+        return isCellValid(this.cell.getState() - 1, grid)
+                && isCellValid(this.cell.getState() + 1, grid);
     }
 
     /**
-     * Determines if a cell's state is valid based on neighboring cells and the
-     * overall grid.
+     * Determines if the consecutive number {@code state} is either not placed
+     * in the grid, or placed in a neighbouring cell.
      */
-    private boolean isCellValid(boolean hasNeighbor, int state, KGrid grid) {
-        if (!hasNeighbor) {
-            for (KCell cell : grid) {
-                if (cell.getState() == state) {
-                    return false;
-                }
-            }
-        }
-        return true;
+    private boolean isCellValid(int state, KGrid grid) {
+        return grid.getCellWithNumber(state) == null || hasNeighboringCellWithState(state);
     }
 
     /**
@@ -142,15 +185,7 @@ public class HNeighbour extends AbstractGroup {
      * @return true if a duplicate is found, false otherwise.
      */
     private boolean isDuplicateInGrid(KGrid grid) {
-        for (KCell cell : grid) {
-            if (cell.getState() > 0 && cell.getState() < 1000) {
-                if (cell.getState() == this.cell.getState()
-                        && !cell.getLocation().equals(this.cell.getLocation())) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return this.cell.isFilled() && grid.getStateCount(this.cell.getState()) > 1;
     }
 
     /**
@@ -160,17 +195,16 @@ public class HNeighbour extends AbstractGroup {
      * @return true if such a neighboring cell is found, false otherwise.
      */
     private boolean hasNeighboringCellWithState(int state) {
-        if (state > 0) {
-            for (KCell cell : this) {
-                if (cell.getState() > 0 && cell.getState() < 1000) {
-                    if (cell.getState() == state) {
-                        return true;
-                    }
-                }
-            }
-        } else {
+        if (state <= 0) {
             return true;
         }
+        final KGrid grid = this.cell.getGrid();
+        final int end = grid.getNeighbourEnd(this.cell.getId());
+        for (int k = grid.getNeighbourStart(this.cell.getId()); k != end; ++k) {
+            if (grid.getCellById(grid.getNeighbourId(k)).getState() == state) {
+                return true;
+            }
+        }
         return false;
     }
 
@@ -181,13 +215,7 @@ public class HNeighbour extends AbstractGroup {
      * @return true if empty, otherwise false.
      */
     private boolean isEmptyGrid(KGrid grid) {
-        for (KCell cell : grid) {
-            if (cell.getState() > 0) {
-                // System.out.println(cell.getState() + " lok " + cell.getLocation());
-                return false;
-            }
-        }
-        return true;
+        return grid.getPlacedCount() == 0;
     }
 
     /**
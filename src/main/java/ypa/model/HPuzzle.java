@@ -203,7 +203,7 @@ public class HPuzzle {
      * @return whether puzzle is solved
      */
     public boolean isSolved() {
-        return grid.isFull() && grid.isValid();
+        return grid.isCompletePath();
     }
 
     /**
@@ -1,36 +1,54 @@
 package ypa.model;
 
-import java.util.HashMap;
+import java.util.Arrays;
 
 /**
  * A histogram of cell states, counting how often each state occurs in a group.
+ * The counts are kept in a primitive array indexed by state, offset by
+ * {@link KCell#BLOCKED}, so that getting and adjusting a count neither boxes
+ * nor allocates, as long as the state is within the reserved range.
  *
  * @inv For each possible cell state, a count is maintained
  *
  * @author Tom Verhoeff (Eindhoven University of Technology)
  */
-public class Histogram extends HashMap<Integer, Integer> {
+public class Histogram {
+
+    /** Default largest state for which room is reserved. */
+    private static final int DEFAULT_MAX_STATE = 9;
+
+    /** The counts, where {@code counts[state - KCell.BLOCKED]} is the count of state. */
+    private int[] counts;
+
+    // Private invariant:
+    // (\forall state; state - KCell.BLOCKED >= counts.length; get(state) == 0)
 
     /** Constructs an empty histogram. */
     public Histogram() {
-        super();
-        put(KCell.BLOCKED, 0);
-        put(KCell.EMPTY, 0);
+        this(DEFAULT_MAX_STATE);
+    }
+
+    /**
+     * Constructs an empty histogram with room for states up to a given maximum.
+     *
+     * @param maxState the largest state expected
+     */
+    public Histogram(final int maxState) {
+        counts = new int[Math.max(maxState, KCell.EMPTY) - KCell.BLOCKED + 1];
     }
 
     /**
      * Returns the occurrence count for a given cell state.
      *
-     * @param key the given cell state
-     * @return how often {@code key} occurs
+     * @param state the given cell state
+     * @return how often {@code state} occurs
      */
-    @Override
-    public Integer get(Object key) {
-        Integer current = super.get(key);
-        if (current == null) {
-            current = 0;
+    public int get(final int state) {
+        final int index = state - KCell.BLOCKED;
+        if (index < 0 || index >= counts.length) {
+            return 0;
         }
-        return current;
+        return counts[index];
     }
 
     /**
@@ -38,13 +56,29 @@ public class Histogram extends HashMap<Integer, Integer> {
      *
      * @param state state whose count changes
      * @param delta the amount of change
-     * @pre {@code true}
+     * @pre {@code KCell.BLOCKED <= state}
      * @modifies {@code this}
      * @post {@code get(state) == \old(get(state) + delta) &&}<br>
      *       {@code (\forall CellState s; s != state; get(s) == \old(get(s)))}
      */
     public void adjust(final int state, final int delta) {
-        put(state, get(state) + delta);
+        reserve(state);
+        counts[state - KCell.BLOCKED] += delta;
+    }
+
+    /**
+     * Makes room for states up to a given maximum,
+     * so that adjusting their counts does not allocate.
+     *
+     * @param maxState the largest state expected
+     * @modifies {@code this}
+     * @post counts are unchanged
+     */
+    public void reserve(final int maxState) {
+        final int length = maxState - KCell.BLOCKED + 1;
+        if (length > counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(length, 2 * counts.length));
+        }
     }
 
 }
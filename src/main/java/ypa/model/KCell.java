@@ -1,13 +1,15 @@
 package ypa.model;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Scanner;
 
 /**
  * A grid cell for a Kakuro puzzle.
  * Every group that contains this cell is treated as a listener for state
  * changes of this cell.
+ * A cell is a view on an entry of a {@link CellStore}, which holds its state,
+ * lock flag, location, and groups.
+ * A cell in a grid shares the store of that grid;
+ * a cell constructed on its own gets a store of its own.
  *
  * @author Tom Verhoeff (Eindhoven University of Technology)
  */
@@ -25,23 +27,15 @@ public class KCell {
     /** String for empty state. */
     public static final String EMPTY_STR = ".";
 
-    /** The cell's state. */
-    private int state;
-
-    /** Locked state of the cell. */
-    private boolean isLocked = false;
-
     /**
-     * The groups to which this cell belongs.
-     * The first group will be the whole grid.
+     * The store holding the cell's data.
+     * The groups to which this cell belongs are held there;
+     * the first group will be the whole grid.
      */
-    private final List<AbstractGroup> groups;
-
-    /** Location in the grid, if any. */
-    private Location location;
+    private final CellStore store;
 
-    /** The grid to which this cell belongs, if any. */
-    private KGrid grid;
+    /** The cell's id, that is, its index in {@code store}. */
+    private final int id;
 
     /**
      * Constructs a cell with a given state.
@@ -54,9 +48,20 @@ public class KCell {
             throw new IllegalArgumentException(getClass().getSimpleName()
                     + "(" + state + ").pre failed");
         }
-        this.state = state;
-        groups = new ArrayList<>();
-        grid = null;
+        store = new CellStore(1, state);
+        id = 0;
+    }
+
+    /**
+     * Constructs a view on an entry of a given store.
+     *
+     * @param store the store holding the cell's data
+     * @param id    the index of the cell in {@code store}
+     * @pre {@code 0 <= id < store.size()}
+     */
+    KCell(final CellStore store, final int id) {
+        this.store = store;
+        this.id = id;
     }
 
     /**
@@ -78,15 +83,28 @@ public class KCell {
     }
 
     public int getState() {
-        return state;
+        return store.getState(id);
+    }
+
+    /**
+     * Gets the id of this cell, which is its row-major index in its grid.
+     *
+     * @return id of {@code this}
+     */
+    public int getId() {
+        return id;
+    }
+
+    CellStore getStore() {
+        return store;
     }
 
     public void setLock(boolean isLocked) {
-        this.isLocked = isLocked;
+        store.setLock(id, isLocked);
     }
 
     public boolean getLockState() {
-        return this.isLocked;
+        return store.isLocked(id);
     }
 
     /**
@@ -100,10 +118,13 @@ public class KCell {
             throw new IllegalArgumentException(getClass().getSimpleName()
                     + ".setState().pre failed: state == " + state + " < " + BLOCKED);
         }
-        for (AbstractGroup group : groups) {
-            group.update(this, state);
+        store.updateGroups(this, state);
+        final int oldState = store.getState(id);
+        store.setState(id, state);
+        final KGrid grid = store.getGrid();
+        if (grid != null) {
+            grid.changed(this, oldState);
         }
-        this.state = state;
     }
 
     /**
@@ -112,7 +133,7 @@ public class KCell {
      * @return whether {@code this} is blocked
      */
     public boolean isBlocked() {
-        return state == BLOCKED;
+        return getState() == BLOCKED;
     }
 
     /**
@@ -121,7 +142,7 @@ public class KCell {
      * @return whether {@code this} is empty
      */
     public boolean isEmpty() {
-        return state == EMPTY;
+        return getState() == EMPTY;
     }
 
     /**
@@ -130,23 +151,29 @@ public class KCell {
      * @return whether {@code this} is filled
      */
     public boolean isFilled() {
-        return state > EMPTY;
+        return getState() > EMPTY;
     }
 
     public Location getLocation() {
-        return location;
+        return store.getLocation(id);
     }
 
     public void setLocation(Location location) {
-        this.location = location;
+        store.setLocation(id, location);
     }
 
     public KGrid getGrid() {
-        return grid;
+        return store.getGrid();
     }
 
+    /**
+     * Sets the grid to which this cell belongs.
+     * This is shared by all cells in the same store.
+     *
+     * @param grid the grid
+     */
     public void setGrid(KGrid grid) {
-        this.grid = grid;
+        store.setGrid(grid);
     }
 
     /**
@@ -158,7 +185,8 @@ public class KCell {
         if (!this.isFilled()) {
             return true;
         }
-        for (AbstractGroup group : groups) {
+        final KGrid grid = getGrid();
+        for (AbstractGroup group : groups()) {
             if (group == grid) {
                 continue;
             }
@@ -176,7 +204,7 @@ public class KCell {
      * @return whether {@code this} is element of {@code group}
      */
     public boolean isContainedIn(final AbstractGroup group) {
-        return groups.contains(group);
+        return store.isMember(id, group);
     }
 
     /**
@@ -188,7 +216,7 @@ public class KCell {
      * @post {@code isElementOf(group)}
      */
     void add(final AbstractGroup group) {
-        groups.add(group);
+        store.addGroup(id, group);
     }
 
     /**
@@ -224,15 +252,15 @@ public class KCell {
 
     @Override
     public String toString() {
-        return switch (state) {
+        return switch (getState()) {
             case BLOCKED -> BLOCKED_STR;
             case EMPTY -> EMPTY_STR;
-            default -> String.valueOf(state);
+            default -> String.valueOf(getState());
         };
     }
 
     public Iterable<AbstractGroup> groups() {
-        return groups;
+        return store.groups(id);
     }
 
 }
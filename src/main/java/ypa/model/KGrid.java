@@ -1,7 +1,9 @@
 package ypa.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Scanner;
 
@@ -16,8 +18,11 @@ import java.util.Scanner;
  */
 public class KGrid extends AbstractGroup implements Iterable<KCell> {
 
-    /** The grid of cells as a list of rows. */
-    private final List<List<KCell>> matrix;
+    /** The flat storage of the cells' data, indexed by cell id. */
+    private final CellStore store;
+
+    /** The views on the cells in {@code store}, indexed by cell id. */
+    private final KCell[] cells;
 
     /** Number of rows. */
     private final int nRows;
@@ -30,19 +35,78 @@ public class KGrid extends AbstractGroup implements Iterable<KCell> {
     /** The entry specifications. */
     private final List<KEntry> entries;
 
-    /** Initializing the neighbours list. */
-    private final List<HNeighbour> neighbours;
-
     private int maxNum = 0;
 
+    /**
+     * For each number, a cell holding that number, or null if none does.
+     * Maintained by {@link #update(KCell, int)}.
+     */
+    private KCell[] cellByNumber = new KCell[1];
+
+    /** Number of cells holding a number. */
+    private int placedCount = 0;
+
+    /** Zobrist hash of the numbers placed in the grid. */
+    private long stateHash = 0L;
+
+    /**
+     * Start of the adjacency row of each cell in {@code neighbourIds}, by cell id,
+     * followed by the total length; compressed sparse row format.
+     */
+    private int[] neighbourOffsets;
+
+    /** The ids of the non-blocked cells adjacent to each cell, row by row. */
+    private int[] neighbourIds;
+
+    /** The neighbour group of each cell, by cell id; null for blocked cells. */
+    private final HNeighbour[] neighbourByCell;
+
+    /** Whether the neighbour group of each cell is violated, by cell id. */
+    private final boolean[] violated;
+
+    /** Number of violated neighbour groups, as of the last validation. */
+    private int violationCount = 0;
+
+    /** Ids of the cells changed since the last validation, in {@code [0, dirtyCount)}. */
+    private final int[] dirtyIds;
+
+    /** Number of cells changed since the last validation. */
+    private int dirtyCount = 0;
+
+    /** Whether each cell changed since the last validation, by cell id. */
+    private final boolean[] dirty;
+
+    /** The state of each changed cell at the last validation, by cell id. */
+    private final int[] validatedStates;
+
+    /** Whether all neighbour groups must be rechecked at the next validation. */
+    private boolean fullCheckNeeded = true;
+
+    /** The candidate domains; null until requested, or after release. */
+    private CandidateDomains domains;
+
+    /** The distance windows; null while the grid is being constructed. */
+    private DistanceWindows windows;
+
     // Representation invariants:
-    // nRows == matrix.size()
-    // if nRows == 0
-    // then nColumns == 0
-    // else (\forall i; matrix.has(i); matrix.get(i).size() == nColumns)
-    // this.entries refers only to non-blocked cells in the matrix
+    // cells.length == store.size() == (nRows + 1) * nColumns
+    // (\forall id; cells.has(id); cells[id].getId() == id)
+    // the cell at (row, column) is cells[row * nColumns + column]
+    // this.entries refers only to non-blocked cells in the grid
     // each empty cell occurs in exactly two entries,
     // one horizontal and one vertical
+    // (\forall n; 0 < n < cellByNumber.length;
+    //   cellByNumber[n] == null <==> getStateCount(n) == 0)
+    // cellByNumber[n] != null ==> cellByNumber[n].getState() == n
+    // placedCount == (\num_of KCell cell : this; cell.isFilled())
+    // stateHash == (\xor KCell cell : this; zobristKey(cell.getId(), cell.getState()))
+    // the cells adjacent to cell id (horizontally, vertically, or diagonally)
+    // that are not blocked are neighbourIds[neighbourOffsets[id] ..
+    // neighbourOffsets[id + 1]), after construction
+    // violated[id] == (neighbourByCell[id] != null && ! neighbourByCell[id].isValid())
+    // violationCount == (\num_of int id; violated[id]), after validate()
+    // dirty[id] <==> id occurs in dirtyIds[0 .. dirtyCount)
+    // fullCheckNeeded ==> dirtyCount == 0
 
     /**
      * Constructs a grid from a given scanner.
@@ -54,10 +118,40 @@ public class KGrid extends AbstractGroup implements Iterable<KCell> {
      * @pre {@code scanner != null} and it delivers a valid puzzle grid
      */
     public KGrid(final Scanner scanner) {
+        this(KEntry.scanEntries(scanner));
+        scanStates(scanner);
+        windows = new DistanceWindows(this, maxNum);
+    }
 
-        matrix = new ArrayList<>();
-        entries = KEntry.scanEntries(scanner);
-        neighbours = new ArrayList<>();
+    /**
+     * Constructs a copy of a given grid, with the same entries, and cell
+     * states and locks. The entries are copied as such, rather than written
+     * out and parsed again, and only the non-empty cells are set.
+     * The copy shares no mutable state with the original.
+     *
+     * @param original the grid to copy
+     * @pre {@code original != null}
+     */
+    public KGrid(final KGrid original) {
+        this(copyEntries(original.entries));
+        for (int id = 0; id != cells.length; ++id) {
+            final int state = original.store.getState(id);
+            if (state > KCell.EMPTY) {
+                cells[id].setState(state);
+            }
+            cells[id].setLock(original.store.isLocked(id));
+        }
+        windows = new DistanceWindows(this, maxNum);
+    }
+
+    /**
+     * Constructs a grid with given entries, all of whose cells are empty,
+     * without distance windows.
+     *
+     * @param entries the entries, not yet in any grid
+     */
+    private KGrid(final List<KEntry> entries) {
+        this.entries = entries;
 
         // Initialize the grid to be just big enough to contain all entries.
 
@@ -65,43 +159,73 @@ public class KGrid extends AbstractGroup implements Iterable<KCell> {
         final Location dim = KEntry.dimensions(entries);
         nRows = dim.getRow();
         nColumns = dim.getColumn();
-
-        // 2. Initialize the matrix to all blocked cells.
+        store = new CellStore((nRows + 1) * nColumns, KCell.BLOCKED);
+        store.setGrid(this);
+        cells = new KCell[store.size()];
+        neighbourByCell = new HNeighbour[store.size()];
+        violated = new boolean[store.size()];
+        dirtyIds = new int[store.size()];
+        dirty = new boolean[store.size()];
+        validatedStates = new int[store.size()];
+
+        // 2. Initialize the grid to all blocked cells.
         for (int rowIndex = 0; rowIndex != nRows + 1; ++rowIndex) {
-            final List<KCell> row = new ArrayList<>();
-            matrix.add(row);
             for (int columnIndex = 0; columnIndex != nColumns; ++columnIndex) {
-                final KCell cell = new KCell(KCell.BLOCKED);
-                cell.setGrid(this);
+                final KCell cell = new KCell(store, rowIndex * nColumns + columnIndex);
                 cell.setLocation(new Location(rowIndex, columnIndex));
-                row.add(cell);
+                cells[cell.getId()] = cell;
                 associate(cell, this);
             }
         }
 
         // 3. Define the cell states and grouping according to entries.
         for (KEntry entry : entries) {
-            Location loc = entry.getLocation();
+            final Location loc = entry.getLocation();
+            final int firstId = loc.getRow() * nColumns + loc.getColumn();
             for (int i = 0; i != entry.getSpecification().getLength(); ++i) {
-                final KCell cell = getCell(loc);
+                final KCell cell = cells[firstId + i];
                 // TODO: check that cell is not already covered in this direction
                 cell.setState(KCell.EMPTY); // must be done before associate
                 associate(cell, entry);
                 maxNum += 1;
-                loc = new Location(loc.getRow(), loc.getColumn() + 1);
             }
         }
-
+        cellByNumber = new KCell[maxNum + 2];
+        reserve(maxNum);
         for (KEntry entry : entries) {
-            Location loc = entry.getLocation();
-            for (int i = 0; i != entry.getSpecification().getLength(); i++) {
-                final KCell cell = getCell(loc);
-                HNeighbour neighbour = new HNeighbour(cell, loc, maxNum, nRows, nColumns);
-                neighbours.add(neighbour);
-                loc = new Location(loc.getRow(), loc.getColumn() + 1);
+            entry.reserve(maxNum);
+        }
+
+        buildAdjacency();
+        for (KCell cell : cells) {
+            if (!cell.isBlocked()) {
+                neighbourByCell[cell.getId()] = new HNeighbour(cell, maxNum);
             }
         }
+    }
+
+    /**
+     * Makes fresh entries with the same locations and specifications as
+     * given ones, which are immutable.
+     *
+     * @param entries the entries to copy
+     * @return the copies, in the same order
+     */
+    private static List<KEntry> copyEntries(final List<KEntry> entries) {
+        final List<KEntry> result = new ArrayList<>(entries.size());
+        for (KEntry entry : entries) {
+            result.add(new KEntry(entry.getLocation(), entry.getSpecification()));
+        }
+        return result;
+    }
 
+    /**
+     * Reads the states of non-blocked non-empty cells from a given scanner,
+     * if present, and locks those cells.
+     *
+     * @param scanner the given scanner
+     */
+    private void scanStates(final Scanner scanner) {
         if (!scanner.hasNext("=")) {
             return;
         }
@@ -111,9 +235,9 @@ public class KGrid extends AbstractGroup implements Iterable<KCell> {
         while (scanner.hasNext()) {
             Location location = new Location(scanner);
             scanner.next("=");
-            KCell cell = new KCell(scanner); // temporary cell to get state
-            this.getCell(location).setState(cell.getState());
-            this.getCell(location).setLock(true);
+            final KCell cell = this.getCell(location);
+            cell.setState(KCell.fromString(scanner.next()));
+            cell.setLock(true);
         }
     }
 
@@ -146,7 +270,7 @@ public class KGrid extends AbstractGroup implements Iterable<KCell> {
      * @post {@code \result = cells[rowIndex, columnIndex]}
      */
     public KCell getCell(final int rowIndex, final int columnIndex) {
-        return matrix.get(rowIndex).get(columnIndex);
+        return cells[rowIndex * nColumns + columnIndex];
     }
 
     /**
@@ -161,10 +285,344 @@ public class KGrid extends AbstractGroup implements Iterable<KCell> {
         return getCell(location.getRow(), location.getColumn());
     }
 
+    /**
+     * Builds the adjacency table of the non-blocked cells, once.
+     */
+    private void buildAdjacency() {
+        neighbourOffsets = new int[cells.length + 1];
+        final int[] ids = new int[8 * cells.length];
+        int length = 0;
+        for (int id = 0; id != cells.length; ++id) {
+            neighbourOffsets[id] = length;
+            if (store.getState(id) == KCell.BLOCKED) {
+                continue;
+            }
+            final int row = id / nColumns;
+            final int column = id % nColumns;
+            final int lastRow = Math.min(row + 1, nRows);
+            final int firstColumn = Math.max(column - 1, 0);
+            final int lastColumn = Math.min(column + 1, nColumns - 1);
+            for (int newRow = Math.max(row - 1, 0); newRow <= lastRow; ++newRow) {
+                for (int newColumn = firstColumn; newColumn <= lastColumn; ++newColumn) {
+                    final int newId = newRow * nColumns + newColumn;
+                    if (newId != id && store.getState(newId) != KCell.BLOCKED) {
+                        ids[length++] = newId;
+                    }
+                }
+            }
+        }
+        neighbourOffsets[cells.length] = length;
+        neighbourIds = Arrays.copyOf(ids, length);
+    }
+
+    /**
+     * Gets the start of the adjacency row of a cell.
+     * The ids of the non-blocked cells adjacent to cell {@code id} are
+     * {@code getNeighbourId(k)} for {@code getNeighbourStart(id) <= k < getNeighbourEnd(id)}.
+     *
+     * @param id the id of the cell
+     * @return start index of the adjacency row of {@code id}
+     */
+    public int getNeighbourStart(final int id) {
+        return neighbourOffsets[id];
+    }
+
+    /**
+     * Gets the end (exclusive) of the adjacency row of a cell.
+     *
+     * @param id the id of the cell
+     * @return end index of the adjacency row of {@code id}
+     */
+    public int getNeighbourEnd(final int id) {
+        return neighbourOffsets[id + 1];
+    }
+
+    /**
+     * Gets the id of a neighbouring cell in the adjacency table.
+     *
+     * @param k the index in the adjacency table
+     * @return id of the cell at index {@code k}
+     * @pre {@code getNeighbourStart(id) <= k < getNeighbourEnd(id)} for some id
+     */
+    public int getNeighbourId(final int k) {
+        return neighbourIds[k];
+    }
+
+    /**
+     * Gets the location of the cell at given coordinates.
+     * The same location object is returned on every call.
+     *
+     * @param rowIndex    the row coordinate
+     * @param columnIndex the column coordinate
+     * @return location of the cell at {@code rowIndex, columnIndex}
+     * @pre {@code 0 <= rowIndex <= getRowCount() &&
+     *   0 <= columnIndex < getColumnCount()}
+     */
+    public Location getLocation(final int rowIndex, final int columnIndex) {
+        return getCell(rowIndex, columnIndex).getLocation();
+    }
+
+    /**
+     * Gets the cell with a given id.
+     *
+     * @param id the id of the cell
+     * @return cell with {@code id}
+     * @pre {@code 0 <= id < getCount()}
+     * @post {@code \result.getId() == id}
+     */
+    public KCell getCellById(final int id) {
+        return cells[id];
+    }
+
     public List<KEntry> getEntries() {
         return entries;
     }
 
+    /**
+     * Gets a cell holding a given number, without scanning the grid.
+     *
+     * @param number the number to look for
+     * @return a cell whose state is {@code number}, or null if there is none
+     */
+    public KCell getCellWithNumber(final int number) {
+        if (number <= KCell.EMPTY || number >= cellByNumber.length) {
+            return null;
+        }
+        return cellByNumber[number];
+    }
+
+    /**
+     * Gets the number of cells holding a number.
+     *
+     * @return number of filled cells
+     */
+    public int getPlacedCount() {
+        return placedCount;
+    }
+
+    /**
+     * Gets the Zobrist hash of the current state of this grid.
+     * It is the exclusive or of a pseudo-random key for each (cell, number)
+     * pair in the grid, maintained incrementally as cells change.
+     * The keys are a fixed function of cell id and number,
+     * so equal states have equal hashes, also across runs.
+     * Empty and blocked cells do not contribute; an empty grid hashes to 0.
+     *
+     * @return 64-bit fingerprint of the placed numbers
+     */
+    public long getStateHash() {
+        return stateHash;
+    }
+
+    /**
+     * Gets the Zobrist key of a cell holding a given state.
+     * The key is derived with the SplitMix64 finalizer, rather than drawn
+     * from a table, so that it is deterministic and needs no storage.
+     *
+     * @param id    the cell id
+     * @param state the cell state
+     * @return key of {@code state} in cell {@code id}, 0 if it is not a number
+     */
+    static long zobristKey(final int id, final int state) {
+        if (state <= KCell.EMPTY) {
+            return 0L;
+        }
+        long z = ((long) id << 32 | state) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Updates the number index and the state hash
+     * when a cell is about to change state.
+     *
+     * @param cell     the cell that triggered the update, in its old state
+     * @param newState the new state for {@code cell}
+     */
+    @Override
+    public void update(final KCell cell, final int newState) {
+        final int oldState = cell.getState();
+        super.update(cell, newState);
+        stateHash ^= zobristKey(cell.getId(), oldState) ^ zobristKey(cell.getId(), newState);
+        if (oldState > KCell.EMPTY) {
+            --placedCount;
+            if (cellByNumber[oldState] == cell) {
+                cellByNumber[oldState] = getStateCount(oldState) == 0
+                        ? null : findOtherCellWithNumber(cell, oldState);
+            }
+        }
+        if (newState > KCell.EMPTY) {
+            ++placedCount;
+            if (newState >= cellByNumber.length) {
+                cellByNumber = Arrays.copyOf(cellByNumber,
+                        Math.max(newState + 1, 2 * cellByNumber.length));
+            }
+            if (cellByNumber[newState] == null) {
+                cellByNumber[newState] = cell;
+            }
+        }
+    }
+
+    /**
+     * Gets the candidate domains of this grid, which are kept up to date
+     * as cells change. They take memory and update time proportional to the
+     * number of cells times the number of numbers, so they are only built
+     * when first requested, from the current state, and are kept up to date
+     * until released.
+     *
+     * @return the candidate domains
+     * @modifies {@code this}
+     */
+    public CandidateDomains getDomains() {
+        if (domains == null) {
+            domains = new CandidateDomains(this, maxNum);
+        }
+        return domains;
+    }
+
+    /**
+     * Returns whether the candidate domains are built and kept up to date.
+     *
+     * @return whether {@link #getDomains()} was called since the last release
+     */
+    public boolean hasDomains() {
+        return domains != null;
+    }
+
+    /**
+     * Stops keeping the candidate domains up to date, and drops them.
+     * Domains obtained earlier no longer change; a later
+     * {@link #getDomains()} builds them anew.
+     *
+     * @modifies {@code this}
+     */
+    public void releaseDomains() {
+        domains = null;
+    }
+
+    /**
+     * Gets the distance windows of this grid, which are kept up to date
+     * as cells change.
+     *
+     * @return the distance windows
+     */
+    public DistanceWindows getWindows() {
+        return windows;
+    }
+
+    /**
+     * Records that a cell has changed state since the last validation,
+     * and brings the candidate domains and distance windows up to date.
+     *
+     * @param cell     the cell that changed, in its new state
+     * @param oldState the state of {@code cell} before the change
+     */
+    void changed(final KCell cell, final int oldState) {
+        if (domains != null) {
+            domains.changed(cell, oldState);
+        }
+        if (windows != null) {
+            windows.changed(cell, oldState);
+        }
+        final int id = cell.getId();
+        if (fullCheckNeeded || dirty[id]) {
+            return;
+        }
+        dirty[id] = true;
+        validatedStates[id] = oldState;
+        dirtyIds[dirtyCount++] = id;
+    }
+
+    /**
+     * Brings the violation count up to date.
+     * Only the neighbour groups of the changed cells, and of the cells holding
+     * their validated or current number or a consecutive one,
+     * can have changed validity; after a bulk change, all are rechecked.
+     */
+    private void validate() {
+        if (fullCheckNeeded) {
+            for (KCell cell : cells) {
+                recheck(cell);
+            }
+            fullCheckNeeded = false;
+            return;
+        }
+        for (int i = 0; i != dirtyCount; ++i) {
+            final int id = dirtyIds[i];
+            final KCell cell = cells[id];
+            recheck(cell);
+            for (int delta = -1; delta <= 1; ++delta) {
+                recheck(getCellWithNumber(validatedStates[id] + delta));
+                recheck(getCellWithNumber(cell.getState() + delta));
+            }
+            dirty[id] = false;
+        }
+        dirtyCount = 0;
+    }
+
+    /**
+     * Discards the changes recorded since the last validation, and
+     * makes the next validation recheck all neighbour groups.
+     * For use before bulk changes.
+     */
+    private void invalidate() {
+        for (int i = 0; i != dirtyCount; ++i) {
+            dirty[dirtyIds[i]] = false;
+        }
+        dirtyCount = 0;
+        fullCheckNeeded = true;
+    }
+
+    /**
+     * Recomputes whether the neighbour group of a given cell is violated,
+     * and adjusts the violation count accordingly.
+     *
+     * @param cell the cell to recheck, possibly null
+     */
+    private void recheck(final KCell cell) {
+        if (cell == null) {
+            return;
+        }
+        final int id = cell.getId();
+        final HNeighbour neighbour = neighbourByCell[id];
+        if (neighbour == null) {
+            return;
+        }
+        final boolean isViolated = !neighbour.isValid();
+        if (isViolated != violated[id]) {
+            violated[id] = isViolated;
+            violationCount += isViolated ? 1 : -1;
+        }
+    }
+
+    /**
+     * Gets the number of cells whose neighbour group is violated.
+     *
+     * @return number of violated neighbour groups
+     */
+    public int getViolationCount() {
+        validate();
+        return violationCount;
+    }
+
+    /**
+     * Finds a cell, other than a given one, holding a given number.
+     * Only needed when a number occurs more than once.
+     *
+     * @param cell   the cell to skip
+     * @param number the number to look for
+     * @return a cell other than {@code cell} holding {@code number}, or null
+     */
+    private KCell findOtherCellWithNumber(final KCell cell, final int number) {
+        for (int id = 0; id != cells.length; ++id) {
+            if (id != cell.getId() && store.getState(id) == number) {
+                return cells[id];
+            }
+        }
+        return null;
+    }
+
     /**
      * Puts a cell in a group.
      *
@@ -209,21 +667,93 @@ public class KGrid extends AbstractGroup implements Iterable<KCell> {
 
     /**
      * Checks whether this grid is valid.
+     * Only the neighbour groups that can have been affected by changes
+     * since the previous check are rechecked.
      *
      * @return whether this is valid
      */
     @Override
     public boolean isValid() {
-        // Go over neighbour groups and check if they are valid
-        // instead of checking the whole grid
-        for (HNeighbour neigbour : neighbours) {
-            if (!neigbour.isValid()) {
+        validate();
+        return violationCount == 0;
+    }
+
+    /**
+     * Checks whether this grid holds a complete Hidato path: the non-blocked
+     * cells hold the numbers 1 up to their count, each exactly once, and
+     * consecutive numbers are in horizontally, vertically, or diagonally
+     * adjacent cells.
+     *
+     * @return whether this grid is solved
+     * @see #isCompletePath(int[])
+     */
+    public boolean isCompletePath() {
+        final int[] states = new int[cells.length];
+        for (int id = 0; id != cells.length; ++id) {
+            states[id] = store.getState(id);
+        }
+        return isCompletePath(states);
+    }
+
+    /**
+     * Checks whether given cell states form a complete Hidato path on this
+     * grid, as for {@link #isCompletePath()}, without changing the grid.
+     * Builds an index from numbers to cells in one pass, and then checks
+     * consecutive numbers, so it runs in time linear in the number of cells,
+     * without recursion, and large sets of solutions can be checked in bulk.
+     *
+     * @param states the state of each cell, by cell id
+     * @return whether {@code states} is a solution of this grid
+     * @throws IllegalArgumentException if precondition failed
+     * @pre {@code states != null && states.length} is the number of cells
+     */
+    public boolean isCompletePath(final int[] states) {
+        if (states == null || states.length != cells.length) {
+            throw new IllegalArgumentException(this.getClass().getSimpleName()
+                    + ".isCompletePath().pre failed: states do not match the cells");
+        }
+        final int[] positions = indexPositions(states);
+        if (positions == null) {
+            return false;
+        }
+        for (int number = 2; number <= maxNum; ++number) {
+            final int previous = positions[number - 1];
+            final int current = positions[number];
+            if (Math.abs(previous / nColumns - current / nColumns) > 1
+                    || Math.abs(previous % nColumns - current % nColumns) > 1) {
                 return false;
             }
         }
         return true;
     }
 
+    /**
+     * Builds the index from numbers to the cells holding them in given states,
+     * in one pass.
+     *
+     * @param states the state of each cell, by cell id
+     * @return the id of the cell holding each number, by number, or null
+     *     if not every number from 1 to {@code maxNum} is held exactly once
+     *     by a non-blocked cell
+     */
+    private int[] indexPositions(final int[] states) {
+        final int[] positions = new int[maxNum + 1];
+        Arrays.fill(positions, -1);
+        int count = 0;
+        for (int id = 0; id != cells.length; ++id) {
+            if (store.getState(id) == KCell.BLOCKED) {
+                continue;
+            }
+            final int state = states[id];
+            if (state < 1 || state > maxNum || positions[state] != -1) {
+                return null; // empty, out of range, or duplicate
+            }
+            positions[state] = id;
+            ++count;
+        }
+        return count == maxNum ? positions : null;
+    }
+
     /**
      * Clears the non-blocked cells.
      *
@@ -231,13 +761,22 @@ public class KGrid extends AbstractGroup implements Iterable<KCell> {
      *   (cell.isEmpty()) == ! cell.isBlocked)}
      */
     public void clear() {
-        for (final KCell cell : this) {
-            if (!cell.isBlocked()) {
-                cell.setState(KCell.EMPTY);
+        invalidate();
+        for (int id = 0; id != cells.length; ++id) {
+            if (store.getState(id) != KCell.BLOCKED) {
+                cells[id].setState(KCell.EMPTY);
             }
         }
     }
 
+    /**
+     * Returns an iterator over the cells of this grid, in order of id.
+     */
+    @Override
+    public Iterator<KCell> iterator() {
+        return Arrays.asList(cells).iterator();
+    }
+
     /**
      * Returns entries as a string.
      *
@@ -258,12 +797,12 @@ public class KGrid extends AbstractGroup implements Iterable<KCell> {
      */
     public String gridAsString() {
         final StringBuilder result = new StringBuilder();
-        for (List<KCell> row : matrix) {
-            for (KCell cell : row) {
-                result.append(" ");
-                result.append(cell.toString());
+        for (int id = 0; id != cells.length; ++id) {
+            result.append(" ");
+            result.append(cells[id].toString());
+            if ((id + 1) % nColumns == 0) {
+                result.append("\n");
             }
-            result.append("\n");
         }
         return result.toString();
     }
@@ -278,16 +817,14 @@ public class KGrid extends AbstractGroup implements Iterable<KCell> {
         final StringBuilder result = new StringBuilder();
         result.append(this.entriesAsString());
         final StringBuilder separator = new StringBuilder("=\n");
-        for (List<KCell> row : matrix) {
-            for (KCell cell : row) {
-                if (!cell.isBlocked() && !cell.isEmpty()) {
-                    result.append(separator);
-                    separator.setLength(0);
-                    result.append(cell.getLocation());
-                    result.append(" = ");
-                    result.append(cell);
-                    result.append("\n");
-                }
+        for (KCell cell : cells) {
+            if (cell.isFilled()) {
+                result.append(separator);
+                separator.setLength(0);
+                result.append(cell.getLocation());
+                result.append(" = ");
+                result.append(cell);
+                result.append("\n");
             }
         }
         return result.toString();
@@ -70,6 +70,28 @@ public class KPuzzle {
         this.maxNumber = cellCount;
     }
 
+    /**
+     * Constructs a copy of a given puzzle, with the same name, mode,
+     * number range, and cell states and locks.
+     * The copy shares no state with the original, so that both can be
+     * changed independently, for instance on different threads.
+     *
+     * @param original the puzzle to copy
+     * @throws IllegalArgumentException if {@code original == null}
+     * @pre {@code original != null}
+     */
+    public KPuzzle(final KPuzzle original) {
+        if (original == null) {
+            throw new IllegalArgumentException(this.getClass().getSimpleName()
+                    + "().pre failed: original == null");
+        }
+        this.name = original.name;
+        this.mode = original.mode;
+        this.minNumber = original.minNumber;
+        this.maxNumber = original.maxNumber;
+        this.grid = new KGrid(original.grid);
+    }
+
     public String getName() {
         return name;
     }
@@ -262,6 +284,28 @@ public class KPuzzle {
         return grid.getCell(rowIndex, columnIndex);
     }
 
+    /**
+     * Gets the cell with a given id, where the id of the cell at
+     * {@code (row, column)} is {@code row * getColumnCount() + column}.
+     *
+     * @param id the cell id
+     * @return cell with id {@code id}
+     * @pre {@code 0 <= id < getRowCount() * getColumnCount()}
+     */
+    public KCell getCellById(final int id) {
+        return grid.getCellById(id);
+    }
+
+    /**
+     * Gets a cell holding a given number, without scanning the grid.
+     *
+     * @param number the number to look for
+     * @return a cell whose state is {@code number}, or null if there is none
+     */
+    public KCell getCellWithNumber(final int number) {
+        return grid.getCellWithNumber(number);
+    }
+
     /**
      * Gets the entries in this puzzle, so as to iterate over them.
      *
@@ -283,6 +327,78 @@ public class KPuzzle {
         return grid.getStateCount(state);
     }
 
+    /**
+     * Gets a fingerprint of the current state of this puzzle,
+     * for use as a key in caches and transposition tables.
+     * Equal states have equal fingerprints, also across runs;
+     * different states collide with probability about {@code 2^-64}.
+     *
+     * @return 64-bit Zobrist hash of the cell states
+     */
+    public long getStateHash() {
+        return grid.getStateHash();
+    }
+
+    /**
+     * Gets the candidate domains of this puzzle: the numbers that can still
+     * be placed in each empty cell, and the cells in which each number can
+     * still be placed. They are kept up to date as cells change,
+     * so they can be read instead of probing each number.
+     * They are built on first request, and kept until released;
+     * see {@link KGrid#getDomains()}.
+     *
+     * @return the candidate domains
+     * @modifies {@code this}
+     */
+    public CandidateDomains getDomains() {
+        return grid.getDomains();
+    }
+
+    /**
+     * Returns whether the candidate domains are built and kept up to date.
+     *
+     * @return whether {@link #getDomains()} was called since the last release
+     */
+    public boolean hasDomains() {
+        return grid.hasDomains();
+    }
+
+    /**
+     * Stops keeping the candidate domains up to date, so that changing cells
+     * no longer pays for them.
+     *
+     * @modifies {@code this}
+     * @see KGrid#releaseDomains()
+     */
+    public void releaseDomains() {
+        grid.releaseDomains();
+    }
+
+    /**
+     * Gets the distance windows of this puzzle, which are kept up to date
+     * as cells change.
+     *
+     * @return the distance windows
+     */
+    public DistanceWindows getWindows() {
+        return grid.getWindows();
+    }
+
+    /**
+     * Returns whether a given number can be put in a given cell as far as
+     * the distances to the nearest placed numbers below and above it go.
+     * This rejects, without changing the puzzle, many cell/number pairs that
+     * are valid by themselves but cannot lead to a solution.
+     *
+     * @param cell   the cell
+     * @param number the number
+     * @return whether {@code number} is within the distance windows in {@code cell}
+     * @see DistanceWindows#isReachable(KCell, int)
+     */
+    public boolean isReachable(final KCell cell, final int number) {
+        return grid.getWindows().isReachable(cell, number);
+    }
+
     /**
      * Returns whether puzzle is solved.
      *
@@ -292,6 +408,21 @@ public class KPuzzle {
         return grid.isFull() && grid.isValid();
     }
 
+    /**
+     * Checks whether given cell states, for instance those of a solution
+     * found on a copy, form a complete Hidato path on this puzzle's grid,
+     * without changing this puzzle.
+     *
+     * @param states the state of each cell, by cell id
+     * @return whether {@code states} is a solution
+     * @throws IllegalArgumentException if precondition failed
+     * @pre {@code states.length == getRowCount() * getColumnCount()}
+     * @see KGrid#isCompletePath(int[])
+     */
+    public boolean isSolution(final int[] states) {
+        return grid.isCompletePath(states);
+    }
+
     /**
      * Clears the non-blocked cells.
      */
@@ -5,6 +5,9 @@ import java.util.regex.Pattern;
 
 /**
  * Location in the Kakuro puzzle grid (immutable).
+ * A grid keeps one location per cell, see {@link KGrid#getLocation(int, int)},
+ * so that hot paths need not allocate locations;
+ * locations are equal when their coordinates are.
  *
  * @inv NonNegative: {@code 0 <= getRow() && 0 <= getColumn()}
  *
@@ -70,6 +73,23 @@ public class Location {
         };
     }
 
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Location)) {
+            return false;
+        }
+        final Location location = (Location) other;
+        return row == location.row && column == location.column;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * row + column;
+    }
+
     @Override
     public String toString() {
         return String.format("%s%2d", (char) ('a' + row), column);
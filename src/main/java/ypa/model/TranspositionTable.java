@@ -0,0 +1,196 @@
+package ypa.model;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded table of puzzle states proven unsolvable, keyed by
+ * {@link KPuzzle#getStateHash()}, so that a search reaching such a state
+ * again, through a different order of choices, can cut it off at once.
+ * <p>
+ * The table has a fixed number of slots, determined by the memory it may
+ * use; each state hashes to one slot, where it may replace an earlier state
+ * according to a {@link Replacement} policy. Forgetting states is safe:
+ * the search then merely explores them again.
+ * <p>
+ * The table is lock-free, so it can be shared by solvers and reasoners
+ * running in parallel on copies of the same puzzle. A slot holds two longs:
+ * the data of the entry, and the key exclusive-or'ed with the data.
+ * A slot torn by concurrent writes yields a key that does not match,
+ * so it is treated as empty rather than misread.
+ * <p>
+ * Entries are only meaningful for the puzzle, or copies of it, in which
+ * they were proven unsolvable.
+ */
+public class TranspositionTable {
+
+    /** Default amount of memory used by the slots, in bytes. */
+    public static final long DEFAULT_BYTES = 1L << 20;
+
+    /** Number of bytes used per slot. */
+    private static final int SLOT_BYTES = 2 * Long.BYTES;
+
+    /** Number of bits of the data holding the depth. */
+    private static final int DEPTH_BITS = 24;
+
+    /** Mask of the depth in the data. */
+    private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+
+    /** Bit that marks the data of an occupied slot. */
+    private static final long OCCUPIED = 1L << 62;
+
+    /**
+     * Policy to decide whether a new entry replaces the one in its slot.
+     */
+    public enum Replacement {
+        /**
+         * Keeps the entry of greatest depth, that is, with the most empty
+         * cells, whose subtree is largest; entries of earlier generations
+         * are always replaced.
+         */
+        DEPTH,
+        /** Always replaces, keeping the most recent entry. */
+        AGE
+    }
+
+    /** The slots: key exclusive-or data at even, data at odd indices. */
+    private final AtomicLongArray slots;
+
+    /** Mask to map a key to a slot number. */
+    private final int slotMask;
+
+    /** The replacement policy. */
+    private final Replacement replacement;
+
+    /** The current generation, stored in new entries. */
+    private volatile int generation;
+
+    // Representation invariants:
+    // slots.length() == 2 * (slotMask + 1), and slotMask + 1 is a power of 2
+    // slot i is empty, or its data has OCCUPIED set,
+    //   with the generation in bits 24..54 and the depth in bits 0..23
+
+    /**
+     * Constructs an empty table that uses the default amount of memory,
+     * with depth-preferred replacement.
+     */
+    public TranspositionTable() {
+        this(DEFAULT_BYTES, Replacement.DEPTH);
+    }
+
+    /**
+     * Constructs an empty table that uses at most a given amount of memory
+     * for its slots, with a given replacement policy.
+     *
+     * @param bytes       the memory to use, in bytes
+     * @param replacement the replacement policy
+     * @throws IllegalArgumentException if precondition failed
+     * @pre {@code 2 * Long.BYTES <= bytes && replacement != null}
+     */
+    public TranspositionTable(final long bytes, final Replacement replacement) {
+        if (bytes < SLOT_BYTES) {
+            throw new IllegalArgumentException(this.getClass().getSimpleName()
+                    + "().pre failed: bytes == " + bytes + " < " + SLOT_BYTES);
+        }
+        if (replacement == null) {
+            throw new IllegalArgumentException(this.getClass().getSimpleName()
+                    + "().pre failed: replacement == null");
+        }
+        final long wanted = Math.min(bytes / SLOT_BYTES, 1L << 30);
+        final int slotCount = Integer.highestOneBit((int) wanted);
+        slots = new AtomicLongArray(2 * slotCount);
+        slotMask = slotCount - 1;
+        this.replacement = replacement;
+    }
+
+    /**
+     * Gets the number of slots, which bounds the number of entries.
+     *
+     * @return number of slots
+     */
+    public int getCapacity() {
+        return slotMask + 1;
+    }
+
+    /**
+     * Returns whether a state is recorded as unsolvable.
+     *
+     * @param key the hash of the state
+     * @return whether the state with hash {@code key} was recorded and not replaced
+     */
+    public boolean isFailed(final long key) {
+        final int index = 2 * slot(key);
+        final long data = slots.get(index + 1);
+        return data != 0 && (slots.get(index) ^ data) == key;
+    }
+
+    /**
+     * Records a state as unsolvable, unless the replacement policy keeps the
+     * entry already in its slot.
+     *
+     * @param key   the hash of the state
+     * @param depth the number of empty cells of the state
+     * @pre {@code 0 <= depth}
+     * @modifies {@code this}
+     */
+    public void recordFailed(final long key, final int depth) {
+        final int index = 2 * slot(key);
+        final long data = OCCUPIED | (long) generation << DEPTH_BITS
+                | Math.min(depth, DEPTH_MASK);
+        if (replacement == Replacement.DEPTH && isDeeper(slots.get(index + 1), data)) {
+            // keep the larger subtree
+            return;
+        }
+        slots.set(index + 1, data);
+        slots.set(index, key ^ data);
+    }
+
+    /**
+     * Returns whether the data of an entry of the current generation has
+     * greater depth than given data.
+     *
+     * @param old  the data of the entry in a slot, 0 if none
+     * @param data the data of a new entry
+     * @return whether {@code old} is of the current generation and deeper
+     *     than {@code data}
+     */
+    private boolean isDeeper(final long old, final long data) {
+        if (old == 0 || (int) (old >>> DEPTH_BITS) != generation) {
+            return false;
+        }
+        return (old & DEPTH_MASK) > (data & DEPTH_MASK);
+    }
+
+    /**
+     * Starts a new generation, so that with depth-preferred replacement
+     * the entries recorded so far no longer block newer ones.
+     * The entries stay valid.
+     *
+     * @modifies {@code this}
+     */
+    public synchronized void newGeneration() {
+        generation = (generation + 1) & Integer.MAX_VALUE;
+    }
+
+    /**
+     * Removes all entries.
+     *
+     * @modifies {@code this}
+     */
+    public void clear() {
+        for (int i = 0; i != slots.length(); ++i) {
+            slots.set(i, 0);
+        }
+    }
+
+    /**
+     * Gets the slot of a given key.
+     *
+     * @param key the key
+     * @return slot number of {@code key}
+     */
+    private int slot(final long key) {
+        // all bits of a Zobrist key are equally well mixed
+        return (int) (key >>> 32) & slotMask;
+    }
+
+}
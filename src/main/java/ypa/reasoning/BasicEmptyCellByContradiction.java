@@ -26,6 +26,9 @@ public class BasicEmptyCellByContradiction extends EmptyCellReasoner {
 
         // Iterate over all possible states for the cell
         for (int state = puzzle.getMinNumber(); state <= puzzle.getMaxNumber(); ++state) {
+            if (!puzzle.isReachable(cell, state)) {
+                continue; // Cannot lead to a solution, no need to try it
+            }
             Command command = new SetCommand(cell, state);
             command.execute(); // Temporarily set the cell to this state
             boolean valid = puzzle.isValid(); // Check if the puzzle remains valid
@@ -61,8 +64,8 @@ public class BasicEmptyCellByContradiction extends EmptyCellReasoner {
      */
     private boolean isUniqueCandidate(final KCell cell, int state) {
         for (KCell emptyCell : puzzle.getCells()) {
-            if (emptyCell.isEmpty() && !emptyCell.isBlocked()
-                    && !emptyCell.getLocation().equals(cell.getLocation())) {
+            if (emptyCell.isEmpty() && emptyCell != cell
+                    && puzzle.isReachable(emptyCell, state)) {
                 Command tempCommand = new SetCommand(emptyCell, state);
                 tempCommand.execute();
                 boolean tempValid = puzzle.isValid();
@@ -2,8 +2,10 @@ package ypa.reasoning;
 
 import ypa.command.CompoundCommand;
 import ypa.command.SetCommand;
+import ypa.command.Trail;
 import ypa.model.KCell;
 import ypa.model.KPuzzle;
+import ypa.model.TranspositionTable;
 
 /**
  * When only one way of filling an empty cell does not lead to an invalid state
@@ -14,6 +16,11 @@ import ypa.model.KPuzzle;
  * Note that it is specifically allowed to set the reasoner used
  * for validity checking, to the reasoner itself.
  * That is why the reasoner is not set in the constructor.
+ * <p>
+ * Optionally, the probed states that lead to a contradiction are recorded in
+ * a {@link TranspositionTable}, and probed states found there are not
+ * reasoned about again. This pays off for the recursive reasoner, which
+ * reaches the same states through different orders of probes.
  *
  * @author Tom Verhoeff (Eindhoven University of Technology)
  */
@@ -22,6 +29,12 @@ public class GeneralizedEmptyCellByContradiction extends EmptyCellReasoner {
     /** The reasoner to apply before checking validity. */
     private final Reasoner reasoner;
 
+    /** The trail on which the cell is probed. */
+    private final Trail trail;
+
+    /** The table of states proven unsolvable; null if none. */
+    private TranspositionTable table;
+
     /**
      * Constructs a reasoner for the given puzzle and reasoner.
      *
@@ -41,6 +54,7 @@ public class GeneralizedEmptyCellByContradiction extends EmptyCellReasoner {
                     + "setReasoner.pre failed: reasoning.puzzle != this.puzzle");
         }
         this.reasoner = reasoner;
+        this.trail = new Trail(puzzle);
     }
 
     /**
@@ -53,6 +67,19 @@ public class GeneralizedEmptyCellByContradiction extends EmptyCellReasoner {
     public GeneralizedEmptyCellByContradiction(KPuzzle puzzle) {
         super(puzzle);
         reasoner = this;
+        trail = new Trail(puzzle);
+    }
+
+    /**
+     * Sets the table in which to record and look up states proven unsolvable.
+     * The table may be shared with solvers and other reasoners for the
+     * same puzzle.
+     *
+     * @param table the table, or null to use none
+     * @modifies {@code this}
+     */
+    public void setTranspositionTable(final TranspositionTable table) {
+        this.table = table;
     }
 
     @Override
@@ -64,20 +91,24 @@ public class GeneralizedEmptyCellByContradiction extends EmptyCellReasoner {
         CompoundCommand candidateForcedCommand = null; // command that worked, if any
 
         for (int state = puzzle.getMinNumber(); state <= puzzle.getMaxNumber(); ++state) {
-            CompoundCommand command = new CompoundCommand();
-            command.add(new SetCommand(cell, state));
-            command.execute();
-            CompoundCommand compound = reasoner.apply();
+            // probe on the trail; commands are only built for a candidate
+            trail.push();
+            trail.set(cell, state);
+            CompoundCommand compound = probe();
             if (compound != null) {
-                // no contradiction
-                command.add(compound);
+                // no contradiction; undo the reasoning
+                compound.revert();
             }
-            command.revert();
+            trail.pop();
             if (compound != null) {
                 // no contraction; command is a candidate
                 if (candidateForcedCommand == null) {
                     // first command that is valid; memorize it
-                    candidateForcedCommand = command;
+                    candidateForcedCommand = new CompoundCommand();
+                    candidateForcedCommand.add(new SetCommand(cell, state));
+                    if (compound.size() != 0) {
+                        candidateForcedCommand.add(compound);
+                    }
                 } else {
                     // multiple valid ways of filling cell; no forced command
                     return result;
@@ -96,4 +127,26 @@ public class GeneralizedEmptyCellByContradiction extends EmptyCellReasoner {
         }
     }
 
+    /**
+     * Applies the reasoner to the probed state, unless the state is known to
+     * be unsolvable, and records the state if it leads to a contradiction.
+     *
+     * @return the reasoning applied, or null if the state is unsolvable
+     * @modifies {@code puzzle, table}
+     */
+    private CompoundCommand probe() {
+        if (table == null) {
+            return reasoner.apply();
+        }
+        final long key = puzzle.getStateHash();
+        if (table.isFailed(key)) {
+            return null;
+        }
+        final CompoundCommand compound = reasoner.apply();
+        if (compound == null) {
+            table.recordFailed(key, puzzle.getStateCount(KCell.EMPTY));
+        }
+        return compound;
+    }
+
 }
@@ -4,6 +4,8 @@ import java.util.Collection;
 import java.util.Stack;
 
 import ypa.command.Command;
+import ypa.command.SetCommand;
+import ypa.model.KCell;
 import ypa.model.KPuzzle;
 
 /**
@@ -19,6 +21,9 @@ public abstract class AbstractSolver {
     /** Commands executed. */
     protected Stack<Command> commands;
 
+    /** Whether cancellation has been requested; may be set by another thread. */
+    private volatile boolean cancelled;
+
     /**
      * Constructs a reasoner for a given puzzle.
      *
@@ -44,6 +49,58 @@ public abstract class AbstractSolver {
         return commands;
     }
 
+    /**
+     * Requests the search to stop as soon as possible.
+     * May be called from another thread than the one searching.
+     * A cancelled search returns {@code false} and leaves the puzzle unchanged.
+     * Solvers check for cancellation cooperatively.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Returns whether cancellation has been requested.
+     *
+     * @return whether {@link #cancel()} was called
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Gets the states of the cells of a given puzzle.
+     *
+     * @param puzzle the puzzle
+     * @return the state of each cell, by cell id
+     */
+    protected static int[] snapshot(final KPuzzle puzzle) {
+        final int[] result = new int[puzzle.getRowCount() * puzzle.getColumnCount()];
+        for (final KCell cell : puzzle.getCells()) {
+            result[cell.getId()] = cell.getState();
+        }
+        return result;
+    }
+
+    /**
+     * Brings the puzzle into given cell states, for instance those of a
+     * solution found on a copy, recording one executed set command per
+     * changed cell.
+     *
+     * @param states the state of each cell, by cell id
+     * @pre {@code states.length == puzzle.getRowCount() * puzzle.getColumnCount()}
+     * @modifies {@code puzzle, commands}
+     */
+    protected void replay(final int[] states) {
+        for (final KCell cell : puzzle.getCells()) {
+            if (cell.getState() != states[cell.getId()]) {
+                final Command command = new SetCommand(cell, states[cell.getId()]);
+                command.execute();
+                commands.push(command);
+            }
+        }
+    }
+
     /**
      * Either finds one solution of the puzzle from its current state,
      * if solvable, or leaves the puzzle unchanged.
@@ -1,13 +1,28 @@
 package ypa.solvers;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 import ypa.command.Command;
-import ypa.command.SetCommand;
+import ypa.command.Trail;
+import ypa.model.DistanceWindows;
 import ypa.model.KCell;
 import ypa.model.KPuzzle;
+import ypa.model.Location;
+import ypa.model.TranspositionTable;
 import ypa.reasoning.Reasoner;
 
 /**
- * A simple recursive backtracking solver for Kakuro Puzzles.
+ * A simple backtracking solver for Kakuro Puzzles.
  * It uses puzzle.getMinNumber() and puzzle.getMaxNumber()
  * to obtain the range of `digits' to try in an empty cell.
  * <p>
@@ -16,17 +31,150 @@ import ypa.reasoning.Reasoner;
  * before looking for an empty cell and trying all possible `digits'.
  * <p>
  * It makes sense for client code to supply a fixpoint strategy.
+ * <p>
+ * The empty cell to branch on, and the order in which numbers are tried
+ * in it, are determined by a {@link CellOrder} and a {@link ValueOrder}.
+ * By default, the first empty cell is taken, and all numbers are tried
+ * in ascending order.
+ * <p>
+ * The search does not recurse: it keeps an explicit stack of choice points,
+ * each holding a cell and the next number to try in it,
+ * so that its depth is not limited by the thread's stack size.
+ * The search can be performed step by step, paused, resumed, and inspected.
+ * <p>
+ * By default, the search backjumps: each choice point records which earlier
+ * choice points caused its numbers to fail (its conflict set), and when all
+ * its numbers are exhausted, the search jumps straight back to the most
+ * recent choice point in that set, skipping the ones in between.
+ * A number {@code n} fails because it is placed elsewhere, or because it is
+ * too far from the holder of {@code n - 1} or {@code n + 1}, or of the
+ * nearest placed number below or above {@code n}, which bound its distance
+ * window. Of the holders that explain the failure, the one set earliest is
+ * blamed. Numbers left out by the value order are explained the same way.
+ * Cells filled by reasoning, and failures without such an explanation,
+ * are blamed on all earlier choice points.
+ * Only subtrees without solutions are skipped, so the solutions are found
+ * in the same order as without backjumping.
+ * <p>
+ * Optionally, the states proven unsolvable are recorded in a
+ * {@link TranspositionTable}, so that when the search reaches such a state
+ * again through a different order of choices, it is cut off at once.
  *
  * @author Tom Verhoeff (Eindhoven University of Technology)
  */
-public class BacktrackSolver extends AbstractSolver {
+public class BacktrackSolver extends AbstractSolver implements SolutionCounter {
 
     /** The strategy to apply before speculating; null if no reasoner. */
     protected Reasoner reasoner;
 
+    /** The strategy to choose the empty cell to branch on. */
+    protected final CellOrder cellOrder;
+
+    /** The strategy to order the numbers to try. */
+    protected final ValueOrder valueOrder;
+
+    /**
+     * A choice point of the search: an empty cell, and the numbers to try in it.
+     */
+    private static final class Frame {
+
+        /** The cell branched on. */
+        private final KCell cell;
+
+        /** The numbers to try in the cell, in order. */
+        private final int[] values;
+
+        /** The reasoning applied before this choice point, or null if none. */
+        private final Command compound;
+
+        /** Index in {@code values} of the next number to try. */
+        private int next;
+
+        /** Whether a number is set in the cell and its subtree is searched. */
+        private boolean placed;
+
+        /** The trail entry setting the number, if placed. */
+        private int entry;
+
+        /** The levels of the earlier choice points that caused failures here. */
+        private final BitSet conflicts = new BitSet();
+
+        Frame(final KCell cell, final int[] values, final Command compound) {
+            this.cell = cell;
+            this.values = values;
+            this.compound = compound;
+        }
+
+    }
+
+    /** The open choice points, outermost first. */
+    private final List<Frame> frames = new ArrayList<>();
+
+    /** The trail of the numbers set in the cells of the choice points. */
+    private final Trail trail;
+
+    /** The reasoning that completed the solution, or null. */
+    private Command finalCompound;
+
+    /** Whether the next step opens a choice point, rather than advancing one. */
+    private boolean descending = true;
+
+    /** Whether the search has ended. */
+    private boolean finished;
+
+    /** Whether the search has found a solution. */
+    private boolean solved;
+
+    /** Number of solutions found so far. */
+    private int solutionCount;
+
+    /** Number of solutions after which the search ends; 0 when enumerating. */
+    private int solutionLimit = 1;
+
+    /** The solution found by the last steps, when enumerating; otherwise null. */
+    private int[] foundSolution;
+
+    /** Number of enumerations started, identifying the current stream. */
+    private int enumeration;
+
+    /** Whether to jump back over choice points that did not cause a failure. */
+    private boolean backjumping = true;
+
+    /** For each cell id, the level of the choice point that set it, or -1. */
+    private final int[] choiceLevels;
+
+    /**
+     * For each cell id, the level of the choice point before which it was
+     * filled by reasoning, or -1.
+     */
+    private final int[] reasonedLevels;
+
+    /** The table of states proven unsolvable; null if none. */
+    private TranspositionTable table;
+
+    /** Number of numbers set in the cells of choice points so far. */
+    private long nodeCount;
+
+    /** Number of nodes after which the search pauses. */
+    private long nodeLimit = Long.MAX_VALUE;
+
+    /**
+     * Whether the candidate domains were not kept when the search started,
+     * so that they are to be released when it ends.
+     */
+    private boolean ownsDomains;
+
+    /** Whether a pause has been requested; may be set by another thread. */
+    private volatile boolean pauseRequested;
+
     /*
      * Rep. invariant:
      * reasoner != null ==> reasoner.puzzle == this.puzzle
+     * trail.size() == (\num_of Frame frame : frames; frame.placed),
+     * and frame.entry indexes the trail in order of frames
+     * choiceLevels[id] == level <==> frames.get(level).placed && its cell has id
+     * frames.get(level).conflicts only contains levels less than level
+     * finished ==> frames.isEmpty() || solved
      */
 
     /**
@@ -37,69 +185,741 @@ public class BacktrackSolver extends AbstractSolver {
      * @pre {@code puzzle != null}
      */
     public BacktrackSolver(KPuzzle puzzle, final Reasoner reasoner) {
+        this(puzzle, reasoner, CellOrder.FIRST_EMPTY, ValueOrder.ASCENDING);
+    }
+
+    /**
+     * Constructs a backtracking solver for a given puzzle,
+     * with given cell and value ordering strategies.
+     *
+     * @param puzzle     the puzzle
+     * @param reasoner   the strategy to apply before speculating, or null
+     * @param cellOrder  the strategy to choose the empty cell to branch on
+     * @param valueOrder the strategy to order the numbers to try
+     * @throws IllegalArgumentException if an argument other than
+     *     {@code reasoner} is null
+     * @pre {@code puzzle != null && cellOrder != null && valueOrder != null}
+     */
+    public BacktrackSolver(KPuzzle puzzle, final Reasoner reasoner,
+            final CellOrder cellOrder, final ValueOrder valueOrder) {
         super(puzzle);
+        if (cellOrder == null || valueOrder == null) {
+            throw new IllegalArgumentException(this.getClass().getSimpleName()
+                    + "().pre failed: cellOrder == null || valueOrder == null");
+        }
         this.reasoner = reasoner;
+        this.cellOrder = cellOrder;
+        this.valueOrder = valueOrder;
+        this.trail = new Trail(puzzle);
+        choiceLevels = new int[puzzle.getRowCount() * puzzle.getColumnCount()];
+        reasonedLevels = new int[choiceLevels.length];
+        Arrays.fill(choiceLevels, -1);
+        Arrays.fill(reasonedLevels, -1);
+    }
+
+    /**
+     * Sets whether the search backjumps over choice points that did not
+     * cause a failure, or always backtracks to the innermost one.
+     * Either way, the same solutions are found in the same order.
+     *
+     * @param backjumping whether to backjump
+     * @modifies {@code this}
+     */
+    public void setBackjumping(final boolean backjumping) {
+        this.backjumping = backjumping;
+    }
+
+    /**
+     * Sets the table in which to record and look up states proven unsolvable.
+     * The table may be shared with other solvers and reasoners for the
+     * same puzzle.
+     *
+     * @param table the table, or null to use none
+     * @modifies {@code this}
+     */
+    public void setTranspositionTable(final TranspositionTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Sets a budget of nodes, after which the search pauses, as if
+     * {@link #pause()} were called. The budget counts from the construction of
+     * this solver, as {@link #getNodeCount()} does.
+     *
+     * @param nodeLimit the number of nodes after which to pause
+     * @modifies {@code this}
+     */
+    public void setNodeLimit(final long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Gets the number of times a number was set in the cell of a choice point,
+     * that is, the number of nodes of the search tree visited so far.
+     *
+     * @return number of nodes visited
+     */
+    public long getNodeCount() {
+        return nodeCount;
     }
 
     // Auxiliary methods
     /**
-     * Returns first empty cell, or null if no empty cells.
-     * TODO: Could look for "better" empty cell.
+     * Returns the empty cell to branch on, as chosen by the cell order,
+     * or null if no empty cells.
      *
-     * @return first empty cell, or null if no empty cells
+     * @return empty cell to branch on, or null if no empty cells
      */
     protected KCell getEmptyCell() {
-        for (final KCell cell : puzzle.getCells()) {
-            if (cell.isEmpty()) {
-                return cell;
-            }
-        }
-        return null;
+        return cellOrder.select(puzzle);
     }
     //
 
+    /**
+     * Searches until the puzzle is solved, the search fails, or a pause is
+     * requested. The first call starts the search; later calls continue it.
+     *
+     * @return whether puzzle was solved
+     * @modifies {@code puzzle}
+     * @post {@code
+     *      (\result && puzzle.isSolved()) ||
+     *      (! \result && isFinished() && puzzle unchanged) ||
+     *      (! \result && ! isFinished() && search paused)}
+     */
     @Override
     public boolean solve() {
+        return resume();
+    }
+
+    /**
+     * Gets the commands whose execution led to the current puzzle state.
+     * They are built from the choice points on request:
+     * for each, its reasoning, if any, followed by the setting of its cell.
+     * Each call returns a new collection, which the search does not change
+     * afterwards.
+     *
+     * @return commands executed to get to current puzzle state
+     */
+    @Override
+    public Collection<Command> getCommands() {
+        final List<Command> result = new ArrayList<>();
+        for (final Frame frame : frames) {
+            if (frame.compound != null) {
+                result.add(frame.compound);
+            }
+            if (frame.placed) {
+                result.add(trail.getCommand(frame.entry));
+            }
+        }
+        if (finalCompound != null) {
+            result.add(finalCompound);
+        }
+        return result;
+    }
+
+    /**
+     * Continues the search, after a pause, until the puzzle is solved,
+     * the search fails, a pause is requested again, or the node budget
+     * is spent.
+     * When cancelled, the search is abandoned and the puzzle restored.
+     * An enumeration of {@link #solutions()} whose stream was neither
+     * exhausted nor closed is abandoned first, and a new search started.
+     * The candidate domains of the puzzle, if the orders use them, are kept
+     * across pauses, and released when the search ends or is abandoned,
+     * unless they were already kept before it started.
+     *
+     * @return whether puzzle was solved
+     * @modifies {@code puzzle}
+     * @see #solve()
+     */
+    public boolean resume() {
+        endEnumeration();
+        noteDomains();
+        while (!isCancelled() && nodeCount < nodeLimit && !honourPause() && step()) {
+            // keep searching
+        }
+        if (isCancelled() && !finished) {
+            unwind();
+        }
+        if (finished) {
+            releaseDomains();
+        }
+        return solved;
+    }
+
+    /**
+     * Notes, when a search starts, whether the candidate domains of the puzzle
+     * are kept already, so that only domains built for this search are
+     * released when it ends.
+     *
+     * @modifies {@code this}
+     */
+    private void noteDomains() {
+        if (frames.isEmpty() && !finished && !ownsDomains) {
+            ownsDomains = !puzzle.hasDomains();
+        }
+    }
+
+    /**
+     * Releases the candidate domains of the puzzle, if they were built for
+     * the search that ends.
+     *
+     * @modifies {@code this, puzzle}
+     */
+    private void releaseDomains() {
+        if (ownsDomains) {
+            ownsDomains = false;
+            puzzle.releaseDomains();
+        }
+    }
+
+    /**
+     * Counts the solutions by searching on past each solution,
+     * with the same reasoning and pruning as {@link #solve()}.
+     * A finished search, such as that of an earlier {@link #solve()},
+     * is abandoned first, so that the solutions are counted from the state
+     * of the puzzle before that search.
+     * Afterwards, the puzzle is restored, and this solver can be used anew.
+     * A count that is interrupted by {@link #cancel()}, {@link #pause()}, or
+     * the node budget is not returned, since it may be too low.
+     *
+     * @param limit the number of solutions after which to stop counting
+     * @return the number of solutions, or {@code limit} if there are more
+     * @throws IllegalArgumentException if {@code limit < 1}
+     * @throws IllegalStateException if a paused search is in progress
+     * @throws CancellationException if the count was interrupted
+     * @pre {@code 1 <= limit} and no paused search is in progress
+     * @post puzzle as before the search, if any
+     */
+    @Override
+    public int countSolutions(final int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException(this.getClass().getSimpleName()
+                    + ".countSolutions().pre failed: limit == " + limit + " < 1");
+        }
+        endEnumeration();
+        if (finished) {
+            restart();
+        }
+        if (!frames.isEmpty()) {
+            throw new IllegalStateException(this.getClass().getSimpleName()
+                    + ".countSolutions().pre failed: search in progress");
+        }
+        solutionLimit = limit;
+        resume();
+        // a cancelled search is unwound, and so finished as well
+        final boolean interrupted = !finished || isCancelled();
+        final int result = solutionCount;
+        restart();
+        if (interrupted) {
+            throw new CancellationException(this.getClass().getSimpleName()
+                    + ".countSolutions(): interrupted after " + result + " solutions");
+        }
+        return result;
+    }
+
+    /**
+     * Enumerates the solutions lazily, by searching on past each solution
+     * only when the next one is requested, with the same reasoning and
+     * pruning as {@link #solve()}.
+     * Each solution is given as the state of each cell, by cell id.
+     * While the stream is in use, the puzzle is in an intermediate state;
+     * it is restored, and the candidate domains built for the enumeration
+     * are released, when the stream is exhausted or closed,
+     * after which this solver can be used anew.
+     * A stream that is neither exhausted nor closed, for instance after a
+     * short-circuiting operation such as {@code limit}, is abandoned,
+     * and the puzzle restored, by the next search or enumeration of this
+     * solver; from then on, that stream ends.
+     * The stream is sequential, and must be consumed on one thread.
+     *
+     * @return stream of the solutions
+     * @throws IllegalStateException if a search is in progress
+     * @pre no search is in progress, other than an enumeration
+     */
+    public Stream<int[]> solutions() {
+        endEnumeration();
+        if (!frames.isEmpty() || finished) {
+            throw new IllegalStateException(this.getClass().getSimpleName()
+                    + ".solutions().pre failed: search in progress");
+        }
+        solutionLimit = 0;
+        final int current = ++enumeration;
+        final Spliterator<int[]> spliterator = new Spliterators.AbstractSpliterator<int[]>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(final Consumer<? super int[]> action) {
+                if (current != enumeration || solutionLimit != 0) {
+                    // abandoned, or already ended
+                    return false;
+                }
+                noteDomains();
+                while (foundSolution == null && !finished && !isCancelled()) {
+                    step();
+                }
+                final int[] solution = foundSolution;
+                foundSolution = null;
+                if (solution == null) {
+                    restart();
+                    return false;
+                }
+                action.accept(solution);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            if (current == enumeration) {
+                endEnumeration();
+            }
+        });
+    }
+
+    /**
+     * Abandons the enumeration in progress, if any, restoring the puzzle.
+     *
+     * @modifies {@code puzzle}
+     */
+    private void endEnumeration() {
+        if (solutionLimit == 0) {
+            restart();
+        }
+    }
+
+    /**
+     * Records a solution just found, and decides whether to stop there.
+     * When enumerating, the solution is kept for the stream.
+     *
+     * @return whether the search ends with this solution
+     */
+    private boolean isLastSolution() {
+        ++solutionCount;
+        if (solutionLimit == 0) {
+            foundSolution = snapshot(puzzle);
+        }
+        return solutionCount == solutionLimit;
+    }
+
+    /**
+     * Abandons the search, restoring the puzzle, and makes this solver
+     * ready for a new search.
+     */
+    private void restart() {
+        unwind();
+        releaseDomains();
+        foundSolution = null;
+        solutionCount = 0;
+        solutionLimit = 1;
+        solved = false;
+        finished = false;
+        descending = true;
+    }
+
+    /**
+     * Abandons the search in progress, if any, restoring the puzzle,
+     * so that this solver can be used anew.
+     *
+     * @modifies {@code puzzle}
+     * @post puzzle as before the search
+     */
+    public void abandon() {
+        restart();
+    }
+
+    /**
+     * Requests the search to pause after the current step.
+     * May be called from another thread than the one searching.
+     * A pause requested while the search is not running is honoured by the
+     * next call of {@link #resume()}, which then returns at once.
+     */
+    public void pause() {
+        pauseRequested = true;
+    }
+
+    /**
+     * Returns whether a pause has been requested, and if so, clears the
+     * request, which the caller is to honour by stopping.
+     * A request made after this check is kept for the next one.
+     *
+     * @return whether to pause
+     * @modifies {@code this}
+     */
+    private boolean honourPause() {
+        if (!pauseRequested) {
+            return false;
+        }
+        pauseRequested = false;
+        return true;
+    }
+
+    /**
+     * Performs one step of the search: either opens a choice point on an
+     * empty cell, after reasoning, or tries the next numbers in the cell of
+     * the innermost choice point, until one is valid or all are exhausted.
+     *
+     * @return whether the search is still going on after this step
+     * @modifies {@code puzzle}
+     */
+    public boolean step() {
+        if (finished) {
+            return false;
+        }
+        if (descending) {
+            descend();
+        } else {
+            advance();
+        }
+        return !finished;
+    }
+
+    /**
+     * Returns whether the search has ended, either solved or failed.
+     *
+     * @return whether the search has ended
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Gets the number of open choice points, that is, the depth of the search.
+     * Inspecting the search is only meaningful while it is not running.
+     *
+     * @return the number of open choice points
+     */
+    public int getDepth() {
+        return frames.size();
+    }
+
+    /**
+     * Gets the cell branched on at a given depth of the search.
+     *
+     * @param level the depth, counting from 0 for the outermost choice point
+     * @return the cell of the choice point at {@code level}
+     * @pre {@code 0 <= level < getDepth()}
+     */
+    public KCell getBranchCell(final int level) {
+        return frames.get(level).cell;
+    }
+
+    /**
+     * Abandons the search, undoing all choices and reasoning,
+     * so that the puzzle is back in its initial state.
+     */
+    private void unwind() {
+        while (!frames.isEmpty()) {
+            closeFrame();
+        }
+        if (finalCompound != null) {
+            finalCompound.revert();
+            finalCompound = null;
+        }
+        finished = true;
+    }
+
+    /**
+     * Opens a choice point: applies the reasoner, if any, and picks an empty
+     * cell to branch on. Finishes the search if no empty cell is left.
+     */
+    private void descend() {
+        descending = false;
+        if (table != null && table.isFailed(puzzle.getStateHash())) {
+            // reached again a state proven unsolvable
+            fail();
+            return;
+        }
+        Command compound = null;
         // Backtracking solver, using the reasoner if not null
         if (reasoner != null) {
             // first, fill in cells by reasoning
-            final Command compound = reasoner.apply();
+            compound = reasoner.apply();
             if (compound == null) {
                 // not solvable
-                return false;
+                recordFailure();
+                fail();
+                return;
             }
-            commands.push(compound);
         }
 
         final KCell cell = getEmptyCell();
         if (cell == null) {
             // no more empty cells
-            return puzzle.isValid();
-        } else {
-            // cell is empty; set it in all possible ways
-            for (int state = puzzle.getMinNumber(); state <= puzzle.getMaxNumber(); ++state) {
-                final Command command = new SetCommand(cell, state);
-                command.execute();
-                if (puzzle.isValid()) {
-                    commands.push(command);
-                    // number of open cells is one less
-                    if (solve()) {
-                        return true;
-                    }
-                    // no solution found
-                    commands.pop();
-                }
-                // restore cell state
-                command.revert();
+            complete(compound);
+            return;
+        }
+        final Frame frame = new Frame(cell, valueOrder.order(puzzle, cell), compound);
+        final int level = frames.size();
+        frames.add(frame);
+        if (compound != null) {
+            for (final KCell reasoned : compound.getCells()) {
+                reasonedLevels[reasoned.getId()] = level;
             }
         }
-        if (reasoner != null) {
+        if (backjumping) {
+            explainLeftOut(frame);
+        }
+    }
+
+    /**
+     * Ends a branch in which no empty cell is left: either with a solution,
+     * or by failing the number in the innermost choice point.
+     *
+     * @param compound the reasoning applied last, or null if none
+     */
+    private void complete(final Command compound) {
+        if (puzzle.isValid() && isLastSolution()) {
+            finalCompound = compound;
+            finished = true;
+            solved = true;
+            return;
+        }
+        // invalid, or more solutions wanted
+        if (compound != null) {
+            compound.revert();
+        }
+        recordFailure();
+        fail();
+    }
+
+    /**
+     * Fails the number in the innermost choice point, blaming all earlier
+     * choice points; finishes the search if there is none.
+     */
+    private void fail() {
+        blameAll();
+        finished = frames.isEmpty();
+    }
+
+    /**
+     * Tries the next numbers in the cell of the innermost choice point,
+     * after undoing the number whose subtree failed, if any.
+     * Closes the choice point when all numbers are exhausted.
+     */
+    private void advance() {
+        final Frame frame = frames.get(frames.size() - 1);
+        if (frame.placed) {
+            // no solution found; restore cell state
+            undoChoice(frame);
+        }
+        // cell is empty; set it in all possible ways
+        while (frame.next != frame.values.length) {
+            final int state = frame.values[frame.next++];
+            if (!puzzle.isReachable(frame.cell, state)) {
+                // too far from a placed number to lead to a solution
+                explain(frame, state);
+                continue;
+            }
+            frame.entry = trail.size();
+            trail.push();
+            trail.set(frame.cell, state);
+            ++nodeCount;
+            if (puzzle.isValid()) {
+                frame.placed = true;
+                choiceLevels[frame.cell.getId()] = frames.size() - 1;
+                // number of open cells is one less
+                descending = true;
+                return;
+            }
+            trail.pop();
+            explain(frame, state);
+        }
+        closeFrame();
+        recordFailure();
+        if (backjumping && !frames.isEmpty()) {
+            jumpBack(frame.conflicts);
+        }
+        finished = frames.isEmpty();
+    }
+
+    /**
+     * Undoes the number set in the cell of a choice point.
+     *
+     * @param frame the innermost choice point, with a number placed
+     */
+    private void undoChoice(final Frame frame) {
+        trail.pop();
+        choiceLevels[frame.cell.getId()] = -1;
+        frame.placed = false;
+    }
+
+    /**
+     * Closes the innermost choice point, undoing its number, if placed,
+     * and the reasoning before it.
+     */
+    private void closeFrame() {
+        final Frame frame = frames.remove(frames.size() - 1);
+        if (frame.placed) {
+            undoChoice(frame);
+        }
+        if (frame.compound != null) {
             // to revert the reasoned cells
-            commands.pop().revert();
+            frame.compound.revert();
+            for (final KCell reasoned : frame.compound.getCells()) {
+                reasonedLevels[reasoned.getId()] = -1;
+            }
+        }
+    }
+
+    /**
+     * Closes the choice points that did not cause the failure of a closed
+     * one, and passes its conflicts on to the most recent one that did.
+     * If none did, the search fails.
+     *
+     * @param conflicts the conflict set of the closed choice point
+     */
+    private void jumpBack(final BitSet conflicts) {
+        final int target = conflicts.previousSetBit(frames.size() - 1);
+        while (frames.size() - 1 > target) {
+            // its state fails as well, for the same reasons
+            closeFrame();
+            recordFailure();
+        }
+        if (target >= 0) {
+            final BitSet merged = frames.get(target).conflicts;
+            merged.or(conflicts);
+            merged.clear(target, Math.max(target, merged.length()));
+        }
+    }
+
+    /**
+     * Records the current state as unsolvable, if there is a table.
+     * Not done once a solution is found, since then the subtree searched
+     * need not have failed.
+     */
+    private void recordFailure() {
+        if (table != null && solutionCount == 0) {
+            table.recordFailed(puzzle.getStateHash(), puzzle.getStateCount(KCell.EMPTY));
+        }
+    }
+
+    /**
+     * Blames the failure of the number in the innermost choice point on all
+     * earlier choice points, for want of a finer explanation.
+     */
+    private void blameAll() {
+        if (!frames.isEmpty()) {
+            frames.get(frames.size() - 1).conflicts.set(0, frames.size() - 1);
+        }
+    }
+
+    /**
+     * Explains the failure of the numbers the value order left out of a new
+     * choice point, or of all its numbers if the puzzle is invalid already.
+     *
+     * @param frame the new choice point
+     */
+    private void explainLeftOut(final Frame frame) {
+        if (!puzzle.isValid()) {
+            blameAll();
+            return;
+        }
+        final BitSet tried = new BitSet();
+        for (final int state : frame.values) {
+            tried.set(state);
+        }
+        for (int state = puzzle.getMinNumber(); state <= puzzle.getMaxNumber(); ++state) {
+            if (!tried.get(state)) {
+                explain(frame, state);
+            }
+        }
+    }
+
+    /**
+     * Adds the choice points that cause a number to fail in the cell of a
+     * given choice point to its conflict set.
+     * The number fails because it is placed elsewhere, or because it is too
+     * far from the holder of {@code number - 1}, of {@code number + 1}, or of
+     * an anchor of its distance window. Each of these suffices, so only the
+     * holder set at the earliest choice point is blamed.
+     *
+     * @param frame  the choice point, with its cell empty
+     * @param number the number that failed
+     */
+    private void explain(final Frame frame, final int number) {
+        if (!backjumping) {
+            return;
         }
-        //
+        final DistanceWindows windows = puzzle.getWindows();
+        final int lower = windows.getLowerAnchor(number);
+        final int upper = windows.getUpperAnchor(number);
+        int culprit = -1;
+        culprit = earlier(culprit, number, 0, frame.cell);
+        culprit = earlier(culprit, number - 1, 1, frame.cell);
+        culprit = earlier(culprit, number + 1, 1, frame.cell);
+        culprit = earlier(culprit, lower, number - lower, frame.cell);
+        culprit = earlier(culprit, upper, upper - number, frame.cell);
+        if (culprit < 0) {
+            // no explanation found
+            frame.conflicts.set(0, frames.size() - 1);
+        } else {
+            blame(frame, culprit);
+        }
+    }
 
-        return false;
+    /**
+     * Chooses between two placed numbers that each explain a failure,
+     * the one whose holder was set at the earliest choice point.
+     *
+     * @param culprit  the number chosen so far, or -1 if none
+     * @param number   another number, possibly not placed
+     * @param distance the largest distance between the cell and the holder
+     *     of {@code number} that does not explain the failure
+     * @param cell     the cell in which the failure occurred
+     * @return {@code number} if it is placed, more than {@code distance}
+     *     away from {@code cell}, and set earlier than {@code culprit};
+     *     otherwise {@code culprit}
+     */
+    private int earlier(final int culprit, final int number, final int distance,
+            final KCell cell) {
+        final KCell holder = puzzle.getCellWithNumber(number);
+        if (holder == null || distance(holder, cell) <= distance) {
+            return culprit;
+        }
+        return culprit < 0 || levelOf(number) < levelOf(culprit) ? number : culprit;
+    }
+
+    /**
+     * Gets the latest choice point that caused a given number to be placed.
+     *
+     * @param number a placed number
+     * @return the level of that choice point, or -1 if none, as for givens
+     */
+    private int levelOf(final int number) {
+        final int id = puzzle.getCellWithNumber(number).getId();
+        return choiceLevels[id] >= 0 ? choiceLevels[id] : reasonedLevels[id] - 1;
+    }
+
+    /**
+     * Gets the king-move (Chebyshev) distance between two cells.
+     *
+     * @param cell  a cell
+     * @param other another cell
+     * @return number of king moves from {@code cell} to {@code other}
+     */
+    private static int distance(final KCell cell, final KCell other) {
+        final Location from = cell.getLocation();
+        final Location to = other.getLocation();
+        return Math.max(Math.abs(from.getRow() - to.getRow()),
+                Math.abs(from.getColumn() - to.getColumn()));
+    }
+
+    /**
+     * Adds the choice points that caused a given number to be placed to the
+     * conflict set of a given choice point.
+     *
+     * @param frame  the choice point
+     * @param number the number, possibly out of range or not placed
+     */
+    private void blame(final Frame frame, final int number) {
+        final KCell holder = puzzle.getCellWithNumber(number);
+        if (holder == null) {
+            return;
+        }
+        final int id = holder.getId();
+        if (choiceLevels[id] >= 0) {
+            frame.conflicts.set(choiceLevels[id]);
+        } else if (reasonedLevels[id] >= 0) {
+            frame.conflicts.set(0, reasonedLevels[id]);
+        }
     }
 
 }
@@ -0,0 +1,32 @@
+package ypa.solvers;
+
+import ypa.model.KCell;
+import ypa.model.KPuzzle;
+
+/**
+ * Strategy for choosing the empty cell on which a solver branches next,
+ * also known as variable ordering.
+ */
+@FunctionalInterface
+public interface CellOrder {
+
+    /** Chooses the first empty cell, in row-major order. */
+    CellOrder FIRST_EMPTY = puzzle -> {
+        for (final KCell cell : puzzle.getCells()) {
+            if (cell.isEmpty()) {
+                return cell;
+            }
+        }
+        return null;
+    };
+
+    /**
+     * Chooses an empty cell of a given puzzle to branch on.
+     *
+     * @param puzzle the puzzle
+     * @return an empty cell of {@code puzzle}, or null if there is none
+     * @pre {@code puzzle != null}
+     */
+    KCell select(KPuzzle puzzle);
+
+}
@@ -0,0 +1,231 @@
+package ypa.solvers;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ypa.command.CompoundCommand;
+import ypa.command.SetCommand;
+import ypa.model.KCell;
+import ypa.model.KPuzzle;
+
+/**
+ * A solver that decomposes a Hidato puzzle into independent subproblems.
+ * <p>
+ * A gap is a maximal run of missing numbers between two placed numbers,
+ * or before the first or after the last placed number.
+ * The region of a gap consists of the empty cells in which at least one of
+ * its numbers is reachable, as given by {@link KPuzzle#isReachable(KCell, int)}.
+ * Gaps are coupled only through the cells they share, so gaps with
+ * overlapping regions are grouped into components, and each component is
+ * solved independently with a {@link PathExtensionSolver} restricted to its
+ * numbers, on its own copy of the puzzle.
+ * A component that is a single short gap between two placed numbers is
+ * solved by dynamic programming instead, with a {@link ShortGapSolver}.
+ * The components are solved in parallel, in the common fork/join pool, and
+ * the search cost becomes the sum of their costs instead of their product.
+ * <p>
+ * Since every empty cell must get a number, a component whose region does
+ * not have as many cells as it has numbers cannot be completed.
+ * The solutions of the components are merged into one compound command,
+ * which forms the command history.
+ */
+public class GapDecompositionSolver extends AbstractSolver {
+
+    /**
+     * A component of gaps: its missing numbers and the empty cells in
+     * which they can be placed.
+     */
+    static final class Component {
+
+        /** The missing numbers of the gaps. */
+        private final BitSet numbers = new BitSet();
+
+        /** The ids of the cells in the regions of the gaps. */
+        private final BitSet region = new BitSet();
+
+        /** The number of gaps. */
+        private int gapCount = 1;
+
+        /**
+         * Gets the missing numbers of the gaps in this component.
+         *
+         * @return the numbers, not to be modified
+         */
+        BitSet getNumbers() {
+            return numbers;
+        }
+
+        /**
+         * Gets the cells in which the numbers of this component can be placed.
+         *
+         * @return the cell ids, not to be modified
+         */
+        BitSet getRegion() {
+            return region;
+        }
+
+    }
+
+    /** The solvers currently searching a component. */
+    private final Set<AbstractSolver> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructs a gap decomposition solver for a given puzzle.
+     *
+     * @param puzzle the puzzle
+     * @throws IllegalArgumentException if {@code puzzle == null}
+     * @pre {@code puzzle != null}
+     */
+    public GapDecompositionSolver(final KPuzzle puzzle) {
+        super(puzzle);
+    }
+
+    @Override
+    public boolean solve() {
+        if (!puzzle.isValid()) {
+            return false;
+        }
+        final List<Component> components = decompose();
+        for (final Component component : components) {
+            if (component.numbers.cardinality() != component.region.cardinality()) {
+                return false;
+            }
+        }
+        final List<int[]> solutions = components.parallelStream()
+                .map(this::solveComponent)
+                .toList();
+        if (solutions.contains(null) || isCancelled()) {
+            return false;
+        }
+        final CompoundCommand compound = new CompoundCommand();
+        for (int i = 0; i != components.size(); ++i) {
+            final BitSet region = components.get(i).region;
+            for (int id = region.nextSetBit(0); id >= 0; id = region.nextSetBit(id + 1)) {
+                compound.add(new SetCommand(puzzle.getCellById(id), solutions.get(i)[id]));
+            }
+        }
+        if (compound.size() != 0) {
+            compound.execute();
+            commands.push(compound);
+        }
+        return puzzle.isSolved();
+    }
+
+    /**
+     * Finds the gaps of the puzzle and groups those with overlapping regions
+     * into components.
+     *
+     * @return the components, each with at least one missing number
+     */
+    List<Component> decompose() {
+        final List<Component> components = new ArrayList<>();
+        final int max = puzzle.getWindows().getMaxNumber();
+        int lower = 0;
+        for (int upper = 1; upper <= max + 1; ++upper) {
+            if (upper <= max && puzzle.getCellWithNumber(upper) == null) {
+                continue;
+            }
+            if (upper > lower + 1) {
+                addGap(components, lower + 1, upper - 1);
+            }
+            lower = upper;
+        }
+        return components;
+    }
+
+    /**
+     * Adds a gap to the components, merging the components whose regions
+     * overlap with that of the gap.
+     *
+     * @param components the components found so far, with disjoint regions
+     * @param first      the first missing number of the gap
+     * @param last       the last missing number of the gap
+     * @modifies {@code components}
+     */
+    private void addGap(final List<Component> components, final int first, final int last) {
+        final Component gap = new Component();
+        gap.numbers.set(first, last + 1);
+        for (final KCell cell : puzzle.getCells()) {
+            if (cell.isEmpty() && isReachable(cell, first, last)) {
+                gap.region.set(cell.getId());
+            }
+        }
+        for (int i = components.size() - 1; i >= 0; --i) {
+            final Component other = components.get(i);
+            if (other.region.intersects(gap.region)) {
+                gap.numbers.or(other.numbers);
+                gap.region.or(other.region);
+                gap.gapCount += other.gapCount;
+                components.remove(i);
+            }
+        }
+        components.add(gap);
+    }
+
+    /**
+     * Returns whether any number in a given range is reachable in a given cell.
+     *
+     * @param cell  the cell
+     * @param first the first number of the range
+     * @param last  the last number of the range
+     * @return whether some number in {@code [first, last]} is reachable in {@code cell}
+     */
+    private boolean isReachable(final KCell cell, final int first, final int last) {
+        for (int number = first; number <= last; ++number) {
+            if (puzzle.isReachable(cell, number)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Solves a component, by dynamic programming if it is a single short gap,
+     * and otherwise by search on a copy of the puzzle.
+     *
+     * @param component the component
+     * @return the cell states of the puzzle with the component solved,
+     *     or null if it cannot be solved
+     */
+    private int[] solveComponent(final Component component) {
+        final int first = component.numbers.nextSetBit(0);
+        final int last = component.numbers.length() - 1;
+        if (component.gapCount == 1
+                && ShortGapSolver.isShortGap(puzzle, first, last, component.region)) {
+            final int[] path = new ShortGapSolver(puzzle, first, last, component.region)
+                    .findPath();
+            if (path == null) {
+                return null;
+            }
+            final int[] result = snapshot(puzzle);
+            for (int i = 0; i != path.length; ++i) {
+                result[path[i]] = first + i;
+            }
+            return result;
+        }
+        final KPuzzle copy = new KPuzzle(puzzle);
+        final PathExtensionSolver solver = new PathExtensionSolver(copy, component.numbers);
+        running.add(solver);
+        try {
+            // checked after registering, so that a concurrent cancel is not missed
+            if (isCancelled() || !solver.solve()) {
+                return null;
+            }
+            return snapshot(copy);
+        } finally {
+            running.remove(solver);
+        }
+    }
+
+    @Override
+    public void cancel() {
+        super.cancel();
+        for (final AbstractSolver solver : running) {
+            solver.cancel();
+        }
+    }
+
+}
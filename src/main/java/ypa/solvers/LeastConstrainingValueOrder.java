@@ -0,0 +1,116 @@
+package ypa.solvers;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import ypa.model.CandidateDomains;
+import ypa.model.KCell;
+import ypa.model.KPuzzle;
+import ypa.model.Location;
+
+/**
+ * Value order that tries first the numbers that rule out the fewest options
+ * for the other cells (least constraining value).
+ * Putting number {@code n} in cell {@code c} rules out
+ * <ul>
+ * <li>{@code n} in every other candidate cell of {@code n};
+ * <li>{@code n - 1} and {@code n + 1} in every candidate cell of theirs
+ * that is not adjacent to {@code c}.
+ * </ul>
+ * Only the candidates of the cell, as given by the puzzle's
+ * {@link CandidateDomains} and restricted by the distance windows, are tried;
+ * ties are broken by ascending number, or at random if the order is given a
+ * source of randomness.
+ */
+public class LeastConstrainingValueOrder implements ValueOrder {
+
+    /** Number of bits of a sort key holding the number. */
+    private static final int NUMBER_BITS = 24;
+
+    /** Number of bits of a sort key holding the random tie-breaker. */
+    private static final int TIE_BITS = 16;
+
+    /** The source of randomness to break ties; null to break them by number. */
+    private final Random random;
+
+    /**
+     * Constructs a value order that breaks ties by ascending number.
+     */
+    public LeastConstrainingValueOrder() {
+        this(null);
+    }
+
+    /**
+     * Constructs a value order that breaks ties at random.
+     *
+     * @param random the source of randomness, or null for ascending number
+     */
+    public LeastConstrainingValueOrder(final Random random) {
+        this.random = random;
+    }
+
+    @Override
+    public int[] order(final KPuzzle puzzle, final KCell cell) {
+        final CandidateDomains domains = puzzle.getDomains();
+        // pack (score, tie-breaker, number) into one long, to sort without boxing
+        final long[] keyed = new long[domains.getCandidateCount(cell)];
+        int size = 0;
+        for (int n = domains.nextCandidate(cell, 0); n >= 0;
+                n = domains.nextCandidate(cell, n + 1)) {
+            if (puzzle.isReachable(cell, n)) {
+                final long tie = random == null ? 0 : random.nextInt(1 << TIE_BITS);
+                keyed[size++] = (long) countRuledOut(puzzle, cell, n)
+                        << (TIE_BITS + NUMBER_BITS) | tie << NUMBER_BITS | n;
+            }
+        }
+        Arrays.sort(keyed, 0, size);
+        final int[] result = new int[size];
+        for (int i = 0; i != size; ++i) {
+            result[i] = (int) (keyed[i] & (1L << NUMBER_BITS) - 1);
+        }
+        return result;
+    }
+
+    /**
+     * Counts the options ruled out by putting a given number in a given cell.
+     *
+     * @param puzzle the puzzle
+     * @param cell   the empty cell
+     * @param number a candidate for {@code cell}
+     * @return number of (cell, number) candidate pairs ruled out, besides
+     *     the other candidates of {@code cell} itself
+     */
+    static int countRuledOut(final KPuzzle puzzle, final KCell cell, final int number) {
+        final CandidateDomains domains = puzzle.getDomains();
+        return domains.getCandidateCellCount(number) - 1
+                + countNotAdjacent(puzzle, cell, number - 1)
+                + countNotAdjacent(puzzle, cell, number + 1);
+    }
+
+    /**
+     * Counts the candidate cells of a given number that are not adjacent
+     * to a given cell.
+     *
+     * @param puzzle the puzzle
+     * @param cell   the cell
+     * @param number the number, possibly out of range
+     * @return number of candidate cells of {@code number} not next to {@code cell}
+     */
+    private static int countNotAdjacent(final KPuzzle puzzle, final KCell cell,
+            final int number) {
+        final CandidateDomains domains = puzzle.getDomains();
+        final Location location = cell.getLocation();
+        int count = 0;
+        for (int id = domains.nextCandidateCell(number, 0); id >= 0;
+                id = domains.nextCandidateCell(number, id + 1)) {
+            final Location other = puzzle.getCellById(id).getLocation();
+            if (id != cell.getId()
+                    && (Math.abs(other.getRow() - location.getRow()) > 1
+                    || Math.abs(other.getColumn() - location.getColumn()) > 1)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+}
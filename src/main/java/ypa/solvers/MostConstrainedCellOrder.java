@@ -0,0 +1,124 @@
+package ypa.solvers;
+
+import java.util.Random;
+
+import ypa.model.CandidateDomains;
+import ypa.model.KCell;
+import ypa.model.KGrid;
+import ypa.model.KPuzzle;
+
+/**
+ * Cell order that chooses an empty cell with the fewest remaining numbers
+ * (minimum remaining values), so that dead ends are found early.
+ * Ties are broken by the number of empty neighbours (degree), largest first,
+ * since filling such a cell constrains the most other cells;
+ * remaining ties by row-major order, or at random if the order is given a
+ * source of randomness, for instance to diversify restarts of a search.
+ * <p>
+ * The remaining numbers of a cell are read from the puzzle's
+ * {@link CandidateDomains}, restricted by the distance windows,
+ * so no number is probed by setting it.
+ */
+public class MostConstrainedCellOrder implements CellOrder {
+
+    /** The source of randomness to break ties; null to break them in row-major order. */
+    private final Random random;
+
+    /**
+     * Constructs a cell order that breaks remaining ties in row-major order.
+     */
+    public MostConstrainedCellOrder() {
+        this(null);
+    }
+
+    /**
+     * Constructs a cell order that breaks remaining ties at random.
+     *
+     * @param random the source of randomness, or null for row-major order
+     */
+    public MostConstrainedCellOrder(final Random random) {
+        this.random = random;
+    }
+
+    @Override
+    public KCell select(final KPuzzle puzzle) {
+        KCell best = null;
+        int bestCount = Integer.MAX_VALUE;
+        int bestDegree = -1;
+        int ties = 0;
+        for (final KCell cell : puzzle.getCells()) {
+            if (!cell.isEmpty()) {
+                continue;
+            }
+            final int count = countRemaining(puzzle, cell);
+            if (count == 0) {
+                // dead end: fail here first
+                return cell;
+            }
+            if (count > bestCount) {
+                continue;
+            }
+            final int degree = countEmptyNeighbours(puzzle, cell);
+            if (count < bestCount || degree > bestDegree) {
+                best = cell;
+                bestCount = count;
+                bestDegree = degree;
+                ties = 1;
+            } else if (degree == bestDegree && breaksTie(++ties)) {
+                best = cell;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Decides whether a tied cell replaces the best one so far, such that
+     * each of the tied cells is chosen with equal probability.
+     *
+     * @param ties the number of tied cells so far, including this one
+     * @return whether the tied cell is chosen instead
+     */
+    private boolean breaksTie(final int ties) {
+        return random != null && random.nextInt(ties) == 0;
+    }
+
+    /**
+     * Counts the numbers that remain possible in a given empty cell.
+     *
+     * @param puzzle the puzzle
+     * @param cell   the empty cell
+     * @return number of candidates for {@code cell} within the distance windows
+     */
+    static int countRemaining(final KPuzzle puzzle, final KCell cell) {
+        final CandidateDomains domains = puzzle.getDomains();
+        int count = 0;
+        for (int n = domains.nextCandidate(cell, 0); n >= 0;
+                n = domains.nextCandidate(cell, n + 1)) {
+            if (puzzle.isReachable(cell, n)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the empty cells adjacent to a given cell, diagonals included,
+     * from the adjacency table of its grid.
+     *
+     * @param puzzle the puzzle
+     * @param cell   the cell
+     * @return number of empty neighbours of {@code cell}
+     */
+    static int countEmptyNeighbours(final KPuzzle puzzle, final KCell cell) {
+        final KGrid grid = cell.getGrid();
+        final int end = grid.getNeighbourEnd(cell.getId());
+        int count = 0;
+        for (int k = grid.getNeighbourStart(cell.getId()); k != end; ++k) {
+            if (puzzle.getCellById(grid.getNeighbourId(k)).isEmpty()) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+}
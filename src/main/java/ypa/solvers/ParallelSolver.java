@@ -0,0 +1,200 @@
+package ypa.solvers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import ypa.model.KCell;
+import ypa.model.KPuzzle;
+
+/**
+ * A parallel backtracking solver, using a fork/join pool.
+ * The top levels of the search tree, down to a given split depth,
+ * are expanded into tasks, one per valid number in the branch cell.
+ * Each task owns a private copy of the puzzle, and below the split depth
+ * searches its subtree with a sequential {@link BacktrackSolver}.
+ * The first solution found cancels all other tasks.
+ * <p>
+ * The solution is then replayed onto the given puzzle as set commands,
+ * one per changed cell, which form the command history.
+ * Which solution is found, if there are several, may differ between runs.
+ */
+public class ParallelSolver extends AbstractSolver {
+
+    /** Default number of top levels of the search tree to split into tasks. */
+    public static final int DEFAULT_SPLIT_DEPTH = 2;
+
+    /** The pool to run the tasks in. */
+    private final ForkJoinPool pool;
+
+    /** Number of top levels of the search tree to split into tasks. */
+    private final int splitDepth;
+
+    /** The strategy to choose the empty cell to branch on. */
+    private final CellOrder cellOrder;
+
+    /** The strategy to order the numbers to try. */
+    private final ValueOrder valueOrder;
+
+    /** Whether the tasks must stop, because of a solution or cancellation. */
+    private final AtomicBoolean stopped = new AtomicBoolean();
+
+    /** The sequential solvers currently searching a subtree. */
+    private final Set<AbstractSolver> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructs a parallel solver for a given puzzle, using the common pool,
+     * the default split depth, and most-constrained-cell ordering.
+     *
+     * @param puzzle the puzzle
+     * @throws IllegalArgumentException if {@code puzzle == null}
+     * @pre {@code puzzle != null}
+     */
+    public ParallelSolver(final KPuzzle puzzle) {
+        this(puzzle, ForkJoinPool.commonPool(), DEFAULT_SPLIT_DEPTH,
+                new MostConstrainedCellOrder(), ValueOrder.ASCENDING);
+    }
+
+    /**
+     * Constructs a parallel solver for a given puzzle, with a given pool,
+     * split depth, and cell and value ordering strategies.
+     *
+     * @param puzzle     the puzzle
+     * @param pool       the pool to run the tasks in
+     * @param splitDepth number of top levels of the search tree to split
+     * @param cellOrder  the strategy to choose the empty cell to branch on
+     * @param valueOrder the strategy to order the numbers to try
+     * @throws IllegalArgumentException if precondition failed
+     * @pre {@code puzzle != null && pool != null && 0 <= splitDepth &&
+     *   cellOrder != null && valueOrder != null}
+     */
+    public ParallelSolver(final KPuzzle puzzle, final ForkJoinPool pool, final int splitDepth,
+            final CellOrder cellOrder, final ValueOrder valueOrder) {
+        super(puzzle);
+        if (pool == null || cellOrder == null || valueOrder == null) {
+            throw new IllegalArgumentException(this.getClass().getSimpleName()
+                    + "().pre failed: pool, cellOrder, or valueOrder == null");
+        }
+        if (splitDepth < 0) {
+            throw new IllegalArgumentException(this.getClass().getSimpleName()
+                    + "().pre failed: splitDepth == " + splitDepth + " < 0");
+        }
+        this.pool = pool;
+        this.splitDepth = splitDepth;
+        this.cellOrder = cellOrder;
+        this.valueOrder = valueOrder;
+    }
+
+    @Override
+    public boolean solve() {
+        if (!puzzle.isValid()) {
+            return false;
+        }
+        stopped.set(isCancelled());
+        final int[] solution = pool.invoke(new SearchTask(new KPuzzle(puzzle), 0));
+        if (solution == null || isCancelled()) {
+            return false;
+        }
+        replay(solution);
+        return true;
+    }
+
+    @Override
+    public void cancel() {
+        super.cancel();
+        stop();
+    }
+
+    /**
+     * Makes all tasks stop, and cancels the running sequential solvers.
+     */
+    private void stop() {
+        stopped.set(true);
+        for (final AbstractSolver solver : running) {
+            solver.cancel();
+        }
+    }
+
+    /**
+     * Task to search the subtree below the state of a private copy of the
+     * puzzle; yields the cell states of a solution, or null if none found.
+     */
+    private final class SearchTask extends RecursiveTask<int[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        /** The private copy of the puzzle, in a valid state. */
+        private final KPuzzle copy;
+
+        /** The depth of this task in the search tree. */
+        private final int depth;
+
+        SearchTask(final KPuzzle copy, final int depth) {
+            this.copy = copy;
+            this.depth = depth;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (stopped.get()) {
+                return null;
+            }
+            if (depth >= splitDepth) {
+                return searchSequentially();
+            }
+            final KCell cell = cellOrder.select(copy);
+            if (cell == null) {
+                if (!copy.isSolved()) {
+                    return null;
+                }
+                stop();
+                return snapshot(copy);
+            }
+            final List<SearchTask> tasks = new ArrayList<>();
+            for (final int state : valueOrder.order(copy, cell)) {
+                if (copy.isReachable(cell, state)) {
+                    cell.setState(state);
+                    if (copy.isValid()) {
+                        tasks.add(new SearchTask(new KPuzzle(copy), depth + 1));
+                    }
+                    cell.setState(KCell.EMPTY);
+                }
+            }
+            for (final SearchTask task : invokeAll(tasks)) {
+                final int[] solution = task.join();
+                if (solution != null) {
+                    return solution;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Searches the subtree with a sequential solver,
+         * which is cancelled when another task finds a solution.
+         *
+         * @return the cell states of a solution, or null if none found
+         */
+        private int[] searchSequentially() {
+            final BacktrackSolver solver = new BacktrackSolver(copy, null,
+                    cellOrder, valueOrder);
+            running.add(solver);
+            try {
+                // checked after registering, so that a concurrent stop is not missed
+                if (stopped.get() || !solver.solve()) {
+                    return null;
+                }
+                stop();
+                return snapshot(copy);
+            } finally {
+                running.remove(solver);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,219 @@
+package ypa.solvers;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import ypa.command.Command;
+import ypa.command.Trail;
+import ypa.model.CandidateDomains;
+import ypa.model.KCell;
+import ypa.model.KPuzzle;
+
+/**
+ * A recursive backtracking solver for Hidato puzzles that extends the path
+ * of consecutive numbers, instead of filling cells in a fixed order.
+ * <p>
+ * At each step, it branches on the smallest number that is not yet placed,
+ * and tries it only in the cells that are candidates for it according to the
+ * puzzle's {@link CandidateDomains}. When the preceding number is placed,
+ * these are the empty neighbours of its holder, so there are at most eight.
+ * Numbers that are already placed, such as given ones, are skipped over.
+ * All empty cells are tried only when neither the preceding nor the
+ * following number is placed, which can only happen for number 1.
+ * Cells too far from the next placed number, as given by
+ * {@link KPuzzle#isReachable(KCell, int)}, are not tried.
+ * <p>
+ * The search can be restricted to a given set of numbers, for instance the
+ * numbers of one gap between placed numbers; the other missing numbers are
+ * then left unplaced.
+ */
+public class PathExtensionSolver extends AbstractSolver implements SolutionCounter {
+
+    /** The trail of the numbers set, one level per number. */
+    private final Trail trail;
+
+    /** The numbers to place, or null to place all missing numbers. */
+    private final BitSet numbers;
+
+    /** Number of solutions found so far. */
+    private int solutionCount;
+
+    /** Number of solutions after which the search ends. */
+    private int solutionLimit = 1;
+
+    /**
+     * Constructs a path-extension solver for a given puzzle.
+     *
+     * @param puzzle the puzzle
+     * @throws IllegalArgumentException if {@code puzzle == null}
+     * @pre {@code puzzle != null}
+     */
+    public PathExtensionSolver(final KPuzzle puzzle) {
+        this(puzzle, null);
+    }
+
+    /**
+     * Constructs a path-extension solver for a given puzzle, that only
+     * places the missing numbers in a given set.
+     * A solution then is a valid state in which all these numbers are placed.
+     *
+     * @param puzzle  the puzzle
+     * @param numbers the numbers to place, or null for all numbers
+     * @throws IllegalArgumentException if {@code puzzle == null}
+     * @pre {@code puzzle != null}
+     */
+    public PathExtensionSolver(final KPuzzle puzzle, final BitSet numbers) {
+        super(puzzle);
+        trail = new Trail(puzzle);
+        this.numbers = numbers == null ? null : (BitSet) numbers.clone();
+    }
+
+    /**
+     * Gets the commands whose execution led to the current puzzle state,
+     * built from the trail on request.
+     * Each call returns a new collection, which the search does not change
+     * afterwards.
+     *
+     * @return commands executed to get to current puzzle state
+     */
+    @Override
+    public Collection<Command> getCommands() {
+        final List<Command> result = new ArrayList<>(trail.size());
+        for (int i = 0; i != trail.size(); ++i) {
+            result.add(trail.getCommand(i));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean solve() {
+        if (!puzzle.isValid()) {
+            return false;
+        }
+        solutionCount = 0;
+        solutionLimit = 1;
+        return search();
+    }
+
+    /**
+     * Counts the solutions from the current state of the puzzle, by extending
+     * the path past each solution, with the same pruning as {@link #solve()}.
+     *
+     * @param limit the number of solutions after which to stop counting
+     * @return the number of solutions, or {@code limit} if there are more
+     * @throws IllegalArgumentException if {@code limit < 1}
+     * @throws CancellationException if this solver was cancelled
+     * @pre {@code 1 <= limit}
+     * @post puzzle unchanged
+     */
+    @Override
+    public int countSolutions(final int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException(this.getClass().getSimpleName()
+                    + ".countSolutions().pre failed: limit == " + limit + " < 1");
+        }
+        if (!puzzle.isValid()) {
+            return 0;
+        }
+        final int level = trail.getLevel();
+        solutionCount = 0;
+        solutionLimit = limit;
+        search();
+        while (trail.getLevel() != level) {
+            trail.pop();
+        }
+        if (isCancelled()) {
+            throw new CancellationException(this.getClass().getSimpleName()
+                    + ".countSolutions(): cancelled after " + solutionCount + " solutions");
+        }
+        return solutionCount;
+    }
+
+    /**
+     * Extends the path from the first missing number, keeping the candidate
+     * domains of the puzzle only for the duration of the search,
+     * unless they were already kept before.
+     *
+     * @return whether the wanted number of solutions was reached
+     * @modifies {@code puzzle, trail}
+     * @see #extend(int)
+     */
+    private boolean search() {
+        final boolean attached = puzzle.hasDomains();
+        try {
+            return extend(1);
+        } finally {
+            if (!attached) {
+                puzzle.releaseDomains();
+            }
+        }
+    }
+
+    /**
+     * Extends the path, placing the missing numbers from a given one onwards.
+     *
+     * @param from the number to start looking for missing numbers
+     * @return whether the wanted number of solutions was reached,
+     *     with the puzzle in the last one
+     * @pre {@code puzzle.isValid()} and the numbers to place below
+     *     {@code from} are placed
+     * @modifies {@code puzzle, trail}
+     * @post {@code
+     *      (\result && puzzle.isSolved()) || (! \result && puzzle unchanged)},
+     *      where only the numbers to place count for being solved
+     */
+    private boolean extend(final int from) {
+        final CandidateDomains domains = puzzle.getDomains();
+        final int number = nextMissing(from);
+        if (number < 0) {
+            // all numbers placed; done when enough solutions are found
+            return (numbers != null || puzzle.isSolved()) && ++solutionCount == solutionLimit;
+        }
+        if (isCancelled()) {
+            return false;
+        }
+        for (int id = domains.nextCandidateCell(number, 0); id >= 0;
+                id = domains.nextCandidateCell(number, id + 1)) {
+            final KCell cell = puzzle.getCellById(id);
+            if (!puzzle.isReachable(cell, number)) {
+                // too far from the next placed number
+                continue;
+            }
+            trail.push();
+            trail.set(cell, number);
+            if (puzzle.isValid() && extend(number + 1)) {
+                return true;
+            }
+            // restores the domains as well
+            trail.pop();
+        }
+        return false;
+    }
+
+    /**
+     * Finds the smallest number to place that is not placed yet,
+     * from a given one onwards.
+     *
+     * @param from the number to start looking
+     * @return the smallest missing number to place that is at least
+     *     {@code from}, or -1 if there is none
+     */
+    private int nextMissing(final int from) {
+        final int max = puzzle.getWindows().getMaxNumber();
+        int number = from;
+        while (0 <= number && number <= max) {
+            if (numbers != null) {
+                number = numbers.nextSetBit(number);
+            }
+            if (number < 0 || number > max || puzzle.getCellWithNumber(number) == null) {
+                break;
+            }
+            ++number;
+        }
+        return 0 <= number && number <= max ? number : -1;
+    }
+
+}
@@ -0,0 +1,224 @@
+package ypa.solvers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import ypa.model.KPuzzle;
+
+/**
+ * A solver that races several strategies against each other.
+ * A strategy is a named factory that configures a solver, possibly with
+ * reasoners, for a given puzzle.
+ * On solving, each strategy gets its own copy of the puzzle and runs on its
+ * own thread. The first strategy to finish decides the outcome: if it found a
+ * solution, that solution is replayed onto the given puzzle; if it found
+ * that there is none, the puzzle is unsolvable.
+ * The other strategies are then cancelled, and the winner is recorded;
+ * {@link #solve()} returns only after they have stopped, so that no strategy
+ * still runs on its copy afterwards. Strategies stop cooperatively, at their
+ * next check for cancellation.
+ * <p>
+ * A strategy that fails with an exception, whether its factory or its
+ * solver throws it, does not finish; it is ignored.
+ */
+public class PortfolioSolver extends AbstractSolver {
+
+    /** The names of the strategies. */
+    private final List<String> names = new ArrayList<>();
+
+    /** The factories of the strategies, in the same order as the names. */
+    private final List<Function<KPuzzle, AbstractSolver>> factories = new ArrayList<>();
+
+    /** The solvers of the current race; empty when not racing. */
+    private final List<AbstractSolver> racers = new ArrayList<>();
+
+    /** The name of the strategy that won the last race, or null. */
+    private volatile String winner;
+
+    /**
+     * The outcome of a strategy that finished: whether it found a solution,
+     * and if so, the cell states of that solution.
+     */
+    private static final class Outcome {
+
+        /** The index of the strategy. */
+        private final int strategy;
+
+        /** The state of each cell of the solution, by cell id; null if none. */
+        private final int[] solution;
+
+        Outcome(final int strategy, final int[] solution) {
+            this.strategy = strategy;
+            this.solution = solution;
+        }
+
+    }
+
+    /**
+     * Constructs a portfolio solver for a given puzzle, without strategies.
+     *
+     * @param puzzle the puzzle
+     * @throws IllegalArgumentException if {@code puzzle == null}
+     * @pre {@code puzzle != null}
+     */
+    public PortfolioSolver(final KPuzzle puzzle) {
+        super(puzzle);
+    }
+
+    /**
+     * Adds a strategy to the portfolio.
+     *
+     * @param name    the name of the strategy, to report it as winner
+     * @param factory makes the solver of the strategy for a given puzzle
+     * @return this portfolio solver, for chaining
+     * @throws IllegalArgumentException if {@code name == null || factory == null}
+     * @pre {@code name != null && factory != null}
+     * @modifies {@code this}
+     */
+    public PortfolioSolver addStrategy(final String name,
+            final Function<KPuzzle, AbstractSolver> factory) {
+        if (name == null || factory == null) {
+            throw new IllegalArgumentException(this.getClass().getSimpleName()
+                    + ".addStrategy().pre failed: name == null || factory == null");
+        }
+        names.add(name);
+        factories.add(factory);
+        return this;
+    }
+
+    /**
+     * Gets the name of the strategy that decided the last call of
+     * {@link #solve()}.
+     *
+     * @return name of the winning strategy, or null if none finished
+     */
+    public String getWinner() {
+        return winner;
+    }
+
+    @Override
+    public boolean solve() {
+        winner = null;
+        final int[] solution;
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, factories.size()));
+        try {
+            final Outcome outcome = race(new ExecutorCompletionService<>(executor));
+            if (outcome != null) {
+                winner = names.get(outcome.strategy);
+            }
+            solution = outcome == null ? null : outcome.solution;
+        } finally {
+            cancelRacers();
+            executor.shutdownNow();
+            awaitTermination(executor);
+        }
+        if (solution == null) {
+            return false;
+        }
+        replay(solution);
+        return true;
+    }
+
+    @Override
+    public void cancel() {
+        super.cancel();
+        cancelRacers();
+    }
+
+    /**
+     * Starts all strategies, and waits for the first one to finish.
+     *
+     * Strategies whose factory fails are left out.
+     *
+     * @param service the service to run the strategies on
+     * @return the outcome of the first strategy to finish, or null if none did
+     */
+    private Outcome race(final CompletionService<Outcome> service) {
+        synchronized (racers) {
+            if (isCancelled()) {
+                return null;
+            }
+            for (int i = 0; i != factories.size(); ++i) {
+                final int strategy = i;
+                final KPuzzle copy = new KPuzzle(puzzle);
+                final AbstractSolver solver;
+                try {
+                    solver = factories.get(i).apply(copy);
+                } catch (RuntimeException e) {
+                    // this strategy cannot be set up; race without it
+                    continue;
+                }
+                racers.add(solver);
+                service.submit(() -> {
+                    if (solver.solve()) {
+                        return new Outcome(strategy, snapshot(copy));
+                    }
+                    // a cancelled solver did not finish
+                    return solver.isCancelled() ? null : new Outcome(strategy, null);
+                });
+            }
+        }
+        return awaitWinner(service, racers.size());
+    }
+
+    /**
+     * Waits for the first strategy to finish with a definite outcome.
+     *
+     * @param service the service running the strategies
+     * @param started the number of strategies started
+     * @return the outcome of the first strategy to finish, or null if none did
+     */
+    private Outcome awaitWinner(final CompletionService<Outcome> service, final int started) {
+        for (int pending = started; pending != 0; --pending) {
+            try {
+                final Outcome outcome = service.take().get();
+                if (outcome != null) {
+                    return outcome;
+                }
+            } catch (ExecutionException e) {
+                // this strategy failed; wait for the others
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Waits until the strategies of a race have stopped after cancellation.
+     * If interrupted, stops waiting, and keeps the interrupt status.
+     *
+     * @param executor the executor running the strategies, shut down
+     */
+    private static void awaitTermination(final ExecutorService executor) {
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // cancelled strategies stop at their next check
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Cancels the solvers of the current race, and ends the race.
+     */
+    private void cancelRacers() {
+        synchronized (racers) {
+            for (final AbstractSolver solver : racers) {
+                solver.cancel();
+            }
+            racers.clear();
+        }
+    }
+
+}
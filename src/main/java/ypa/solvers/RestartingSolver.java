@@ -0,0 +1,195 @@
+package ypa.solvers;
+
+import java.util.Random;
+
+import ypa.model.KPuzzle;
+import ypa.model.TranspositionTable;
+
+/**
+ * A solver that restarts a randomized backtracking search, to avoid the
+ * heavy-tailed running times caused by unlucky early choices.
+ * <p>
+ * Each run is a {@link BacktrackSolver} with most-constrained-cell and
+ * least-constraining-value ordering, whose remaining ties are broken at
+ * random. A run is cut off when it has visited its budget of nodes; the
+ * budgets are a unit times the Luby sequence 1, 1, 2, 1, 1, 2, 4, 1, ...,
+ * which is within a constant factor of the best fixed budget, whatever
+ * the distribution of running times.
+ * A run that ends within its budget, with or without a solution, decides
+ * the outcome, so the search is complete.
+ * <p>
+ * The states proven unsolvable in any run are kept across restarts in a
+ * {@link TranspositionTable}, as nogoods that cut off later runs.
+ * All randomness comes from one seed, so a given seed always yields the
+ * same runs and the same solution.
+ */
+public class RestartingSolver extends AbstractSolver {
+
+    /** Default number of nodes in the budget of a run of Luby value 1. */
+    public static final int DEFAULT_UNIT = 64;
+
+    /** The seed of the randomness. */
+    private final long seed;
+
+    /** Number of nodes in the budget of a run of Luby value 1. */
+    private final int unit;
+
+    /** The table of nogoods kept across restarts; null if none. */
+    private final TranspositionTable table;
+
+    /** The run in progress; null if none. */
+    private volatile BacktrackSolver current;
+
+    /** Number of runs of the last search. */
+    private int runCount;
+
+    /** Number of nodes visited by all runs of the last search. */
+    private long nodeCount;
+
+    /**
+     * Constructs a restarting solver for a given puzzle and seed, with the
+     * default unit and a table of the default size.
+     *
+     * @param puzzle the puzzle
+     * @param seed   the seed of the randomness
+     * @throws IllegalArgumentException if {@code puzzle == null}
+     * @pre {@code puzzle != null}
+     */
+    public RestartingSolver(final KPuzzle puzzle, final long seed) {
+        this(puzzle, seed, DEFAULT_UNIT, new TranspositionTable());
+    }
+
+    /**
+     * Constructs a restarting solver for a given puzzle and seed, with a
+     * given unit of the budgets and table of nogoods.
+     *
+     * @param puzzle the puzzle
+     * @param seed   the seed of the randomness
+     * @param unit   number of nodes in the budget of a run of Luby value 1
+     * @param table  the table of nogoods to keep across restarts, or null
+     * @throws IllegalArgumentException if precondition failed
+     * @pre {@code puzzle != null && 1 <= unit}
+     */
+    public RestartingSolver(final KPuzzle puzzle, final long seed, final int unit,
+            final TranspositionTable table) {
+        super(puzzle);
+        if (unit < 1) {
+            throw new IllegalArgumentException(this.getClass().getSimpleName()
+                    + "().pre failed: unit == " + unit + " < 1");
+        }
+        this.seed = seed;
+        this.unit = unit;
+        this.table = table;
+    }
+
+    /**
+     * Gets the number of runs of the last call of {@link #solve()}.
+     *
+     * @return number of runs
+     */
+    public int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * Gets the number of nodes visited by all runs of the last call of
+     * {@link #solve()}.
+     *
+     * @return number of nodes visited
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public boolean solve() {
+        runCount = 0;
+        nodeCount = 0;
+        if (!puzzle.isValid()) {
+            return false;
+        }
+        final boolean attached = puzzle.hasDomains();
+        // keeps the domains for all runs, instead of rebuilding them for each
+        puzzle.getDomains();
+        try {
+            return run(new Random(seed));
+        } finally {
+            if (!attached) {
+                puzzle.releaseDomains();
+            }
+        }
+    }
+
+    /**
+     * Performs runs with growing node budgets until one solves the puzzle,
+     * one exhausts the search, or the search is cancelled.
+     *
+     * @param random the source of the random tie-breaking of the runs
+     * @return whether puzzle was solved
+     * @modifies {@code puzzle, commands, random}
+     */
+    private boolean run(final Random random) {
+        while (!isCancelled()) {
+            ++runCount;
+            final BacktrackSolver solver = new BacktrackSolver(puzzle, null,
+                    new MostConstrainedCellOrder(random),
+                    new LeastConstrainingValueOrder(random));
+            solver.setTranspositionTable(table);
+            solver.setNodeLimit(luby(runCount) * unit);
+            current = solver;
+            // checked after publishing, so that a concurrent cancel is not missed
+            if (isCancelled()) {
+                solver.cancel();
+            }
+            final boolean solved = solver.solve();
+            nodeCount += solver.getNodeCount();
+            current = null;
+            if (solved) {
+                commands.addAll(solver.getCommands());
+                return true;
+            }
+            if (solver.isFinished()) {
+                // exhausted within budget, or cancelled
+                return false;
+            }
+            solver.abandon();
+            if (table != null) {
+                table.newGeneration();
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void cancel() {
+        super.cancel();
+        final BacktrackSolver solver = current;
+        if (solver != null) {
+            solver.cancel();
+        }
+    }
+
+    /**
+     * Gets a term of the Luby sequence 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, ...:
+     * term {@code 2^k - 1} is {@code 2^(k - 1)}, and the terms in between
+     * repeat the sequence from its start.
+     *
+     * @param index the index of the term, starting at 1
+     * @return term {@code index} of the Luby sequence
+     * @pre {@code 1 <= index < 2^62}
+     */
+    static long luby(final long index) {
+        long i = index;
+        while (true) {
+            int k = 1;
+            while ((1L << k) - 1 < i) {
+                ++k;
+            }
+            if (i == (1L << k) - 1) {
+                return 1L << (k - 1);
+            }
+            i -= (1L << (k - 1)) - 1;
+        }
+    }
+
+}
@@ -0,0 +1,252 @@
+package ypa.solvers;
+
+import java.util.BitSet;
+
+import ypa.model.KPuzzle;
+import ypa.model.Location;
+
+/**
+ * Solves a short gap between two placed numbers, the anchors, by memoized
+ * dynamic programming over bitsets of the cells used.
+ * <p>
+ * The missing numbers of the gap form a path of king moves from the holder
+ * of the lower anchor to that of the upper one, through distinct cells of
+ * the region of the gap.
+ * The path is extended one number at a time, only into cells where that
+ * number is reachable in the distance windows of both anchors, so each step
+ * keeps the upper anchor reachable in time.
+ * A partial path is characterized by its last cell and the set of cells it
+ * uses, which is a bitmask over the region; the pairs from which the upper
+ * anchor cannot be reached are memoized, so that each is explored only once,
+ * however many orders its cells can be visited in.
+ * <p>
+ * This is only worthwhile for short gaps with small regions:
+ * see {@link #MAX_LENGTH} and {@link #MAX_REGION}.
+ * Longer gaps are left to search.
+ */
+final class ShortGapSolver {
+
+    /**
+     * A set of nonzero masks, kept in an open-addressing table with linear
+     * probing, so that the masks are not boxed.
+     */
+    static final class MaskSet {
+
+        /** Multiplier to spread the bits of a mask, from the golden ratio. */
+        private static final long SPREAD = 0x9E37_79B9_7F4A_7C15L;
+
+        /** The slots, 0 where empty; the length is a power of 2. */
+        private long[] slots = new long[16];
+
+        /** The number of masks in the set. */
+        private int size;
+
+        /**
+         * Returns whether a given mask is in this set.
+         *
+         * @param mask the mask
+         * @return whether {@code mask} was added
+         * @pre {@code mask != 0}
+         */
+        boolean contains(final long mask) {
+            return slots[find(slots, mask)] == mask;
+        }
+
+        /**
+         * Adds a given mask to this set.
+         *
+         * @param mask the mask
+         * @pre {@code mask != 0}
+         * @modifies {@code this}
+         */
+        void add(final long mask) {
+            if (2 * (size + 1) > slots.length) {
+                final long[] old = slots;
+                slots = new long[2 * old.length];
+                for (final long other : old) {
+                    if (other != 0) {
+                        slots[find(slots, other)] = other;
+                    }
+                }
+            }
+            final int slot = find(slots, mask);
+            if (slots[slot] == 0) {
+                slots[slot] = mask;
+                ++size;
+            }
+        }
+
+        /**
+         * Finds the slot of a given mask in a table, or the empty slot where
+         * it belongs.
+         *
+         * @param table the table, with at least one empty slot
+         * @param mask  the mask
+         * @return the index of {@code mask}, or of the first empty slot after
+         *     its home slot
+         */
+        private static int find(final long[] table, final long mask) {
+            final int bits = Integer.numberOfTrailingZeros(table.length);
+            int slot = (int) (mask * SPREAD >>> (Long.SIZE - bits));
+            while (table[slot] != 0 && table[slot] != mask) {
+                slot = (slot + 1) & (table.length - 1);
+            }
+            return slot;
+        }
+
+    }
+
+    /** The largest number of missing numbers of a short gap. */
+    static final int MAX_LENGTH = 8;
+
+    /** The largest number of cells in the region of a short gap. */
+    static final int MAX_REGION = Long.SIZE;
+
+    /** The cell id of each region index. */
+    private final int[] cellIds;
+
+    /** For each region index, the mask of its neighbours in the region. */
+    private final long[] neighbours;
+
+    /** For each step, the mask of the region cells where its number is reachable. */
+    private final long[] allowed;
+
+    /** The mask of the region cells next to the holder of the upper anchor. */
+    private final long endMask;
+
+    /**
+     * For each region index, the used masks from which no path ends there;
+     * these are never 0, since they include the region index itself.
+     */
+    private final MaskSet[] dead;
+
+    /** The region index of each step of the path found. */
+    private final int[] path;
+
+    /**
+     * Prepares the masks of a short gap.
+     *
+     * @param puzzle the puzzle, which is only read
+     * @param first  the first missing number of the gap
+     * @param last   the last missing number of the gap
+     * @param region the ids of the cells in the region of the gap
+     * @pre {@code isShortGap(puzzle, first, last, region)}
+     */
+    ShortGapSolver(final KPuzzle puzzle, final int first, final int last,
+            final BitSet region) {
+        cellIds = region.stream().toArray();
+        neighbours = new long[cellIds.length];
+        final Location[] locations = new Location[cellIds.length];
+        for (int i = 0; i != cellIds.length; ++i) {
+            locations[i] = puzzle.getCellById(cellIds[i]).getLocation();
+        }
+        for (int i = 0; i != cellIds.length; ++i) {
+            neighbours[i] = maskAround(locations, locations[i]);
+        }
+        final int length = last - first + 1;
+        allowed = new long[length + 1];
+        allowed[0] = maskAround(locations, puzzle.getCellWithNumber(first - 1).getLocation());
+        for (int step = 1; step <= length; ++step) {
+            for (int i = 0; i != cellIds.length; ++i) {
+                if (puzzle.isReachable(puzzle.getCellById(cellIds[i]), first + step - 1)) {
+                    allowed[step] |= 1L << i;
+                }
+            }
+        }
+        endMask = maskAround(locations, puzzle.getCellWithNumber(last + 1).getLocation());
+        dead = new MaskSet[cellIds.length];
+        for (int i = 0; i != cellIds.length; ++i) {
+            dead[i] = new MaskSet();
+        }
+        path = new int[length + 1];
+    }
+
+    /**
+     * Returns whether a gap is short enough, and bounded by placed numbers
+     * on both sides, to be solved by this class.
+     *
+     * @param puzzle the puzzle
+     * @param first  the first missing number of the gap
+     * @param last   the last missing number of the gap
+     * @param region the ids of the cells in the region of the gap
+     * @return whether the gap can be solved by dynamic programming
+     */
+    static boolean isShortGap(final KPuzzle puzzle, final int first, final int last,
+            final BitSet region) {
+        if (last - first + 1 > MAX_LENGTH || region.cardinality() > MAX_REGION) {
+            return false;
+        }
+        return puzzle.getCellWithNumber(first - 1) != null
+                && puzzle.getCellWithNumber(last + 1) != null;
+    }
+
+    /**
+     * Finds a path of the missing numbers between the anchors.
+     *
+     * @return the id of the cell of each missing number, from the first
+     *     one onwards, or null if there is no path
+     */
+    int[] findPath() {
+        final long starts = allowed[0] & allowed[1];
+        for (int i = Long.numberOfTrailingZeros(starts); i < Long.SIZE;
+                i = Long.numberOfTrailingZeros(starts & (-2L << i))) {
+            if (extend(1, i, 1L << i)) {
+                final int[] result = new int[path.length - 1];
+                for (int step = 1; step != path.length; ++step) {
+                    result[step - 1] = cellIds[path[step]];
+                }
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Extends a partial path to the upper anchor.
+     *
+     * @param step the number of missing numbers placed, at least 1
+     * @param cell the region index of the cell of the last one placed
+     * @param used the mask of the region cells of the partial path
+     * @return whether the path could be extended, with the steps in {@code path}
+     * @modifies {@code path, dead}
+     */
+    private boolean extend(final int step, final int cell, final long used) {
+        path[step] = cell;
+        if (step == path.length - 1) {
+            return (endMask & 1L << cell) != 0;
+        }
+        if (dead[cell].contains(used)) {
+            return false;
+        }
+        final long next = neighbours[cell] & allowed[step + 1] & ~used;
+        for (int i = Long.numberOfTrailingZeros(next); i < Long.SIZE;
+                i = Long.numberOfTrailingZeros(next & (-2L << i))) {
+            if (extend(step + 1, i, used | 1L << i)) {
+                return true;
+            }
+        }
+        dead[cell].add(used);
+        return false;
+    }
+
+    /**
+     * Gets the mask of the region cells adjacent to a given location,
+     * diagonals included.
+     *
+     * @param locations the location of each region index
+     * @param center    the location
+     * @return mask of the region indices next to {@code center}
+     */
+    private static long maskAround(final Location[] locations, final Location center) {
+        long result = 0;
+        for (int i = 0; i != locations.length; ++i) {
+            final int rows = Math.abs(locations[i].getRow() - center.getRow());
+            final int columns = Math.abs(locations[i].getColumn() - center.getColumn());
+            if (Math.max(rows, columns) == 1) {
+                result |= 1L << i;
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,35 @@
+package ypa.solvers;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * A solver that can count the solutions of its puzzle, by searching on past
+ * each solution instead of stopping at the first one.
+ */
+public interface SolutionCounter {
+
+    /**
+     * Counts the solutions of the puzzle, stopping as soon as a given number
+     * of solutions has been found.
+     *
+     * @param limit the number of solutions after which to stop counting
+     * @return the number of solutions, or {@code limit} if there are more
+     * @throws IllegalArgumentException if {@code limit < 1}
+     * @throws CancellationException if the count was interrupted before it
+     *     was complete, for instance by cancelling the solver
+     * @pre {@code 1 <= limit}
+     */
+    int countSolutions(int limit);
+
+    /**
+     * Returns whether the puzzle has exactly one solution, stopping the
+     * search at the second solution.
+     *
+     * @return whether the puzzle has a unique solution
+     * @throws CancellationException if the count was interrupted
+     */
+    default boolean hasUniqueSolution() {
+        return countSolutions(2) == 1;
+    }
+
+}
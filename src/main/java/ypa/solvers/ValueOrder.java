@@ -0,0 +1,34 @@
+package ypa.solvers;
+
+import ypa.model.KCell;
+import ypa.model.KPuzzle;
+
+/**
+ * Strategy for ordering the numbers a solver tries in an empty cell,
+ * also known as value ordering.
+ * Numbers left out of the order are not tried at all, so an order may only
+ * leave out numbers that cannot lead to a solution.
+ */
+@FunctionalInterface
+public interface ValueOrder {
+
+    /** Tries all numbers of the puzzle, in ascending order. */
+    ValueOrder ASCENDING = (puzzle, cell) -> {
+        final int[] result = new int[puzzle.getMaxNumber() - puzzle.getMinNumber() + 1];
+        for (int i = 0; i != result.length; ++i) {
+            result[i] = puzzle.getMinNumber() + i;
+        }
+        return result;
+    };
+
+    /**
+     * Orders the numbers to try in a given empty cell of a given puzzle.
+     *
+     * @param puzzle the puzzle
+     * @param cell   the empty cell
+     * @return the numbers to try in {@code cell}, in the order to try them
+     * @pre {@code puzzle != null && cell != null && cell.isEmpty()}
+     */
+    int[] order(KPuzzle puzzle, KCell cell);
+
+}
@@ -0,0 +1,60 @@
+package ypa.command;
+
+import ypa.model.KCell;
+import ypa.model.KPuzzle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class {@code Trail}.
+ */
+public class TrailTest {
+
+    /**
+     * Tests setting cells in nested levels, undoing them,
+     * and building commands from the entries.
+     */
+    @Test
+    public void testLevels() {
+        System.out.println("Trail levels");
+        final KPuzzle puzzle = new KPuzzle(new Scanner("""
+                a 0 3
+                """), "Test");
+        final KCell first = puzzle.getCell(0, 0);
+        final KCell second = puzzle.getCell(0, 1);
+        final Trail instance = new Trail(puzzle);
+        instance.push();
+        instance.set(first, 1);
+        instance.push();
+        instance.set(second, 2);
+        instance.set(second, 3);
+        assertAll(
+                () -> assertEquals(2, instance.getLevel(), "level"),
+                () -> assertEquals(3, instance.size(), "size"),
+                () -> assertEquals(3, second.getState(), "second set")
+        );
+        final SetCommand command = instance.getCommand(0);
+        instance.undoLevel();
+        assertAll(
+                () -> assertEquals(2, instance.getLevel(), "level after undo"),
+                () -> assertEquals(1, instance.size(), "size after undo"),
+                () -> assertTrue(second.isEmpty(), "second restored"),
+                () -> assertTrue(command.isExecuted(), "command executed")
+        );
+        command.revert();
+        assertTrue(first.isEmpty(), "command reverted");
+        first.setState(1);
+        instance.pop();
+        instance.pop();
+        assertAll(
+                () -> assertEquals(0, instance.getLevel(), "level after pop"),
+                () -> assertTrue(first.isEmpty(), "first restored")
+        );
+        assertThrows(IllegalStateException.class, instance::pop, "pop without level");
+    }
+
+}
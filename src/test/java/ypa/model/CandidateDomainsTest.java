@@ -0,0 +1,135 @@
+package ypa.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class {@code CandidateDomains}.
+ */
+public class CandidateDomainsTest {
+
+    /**
+     * Tests the domains of a grid with a given number.
+     */
+    @Test
+    public void testInitialDomains() {
+        System.out.println("CandidateDomains, initial");
+        final KGrid grid = new KGrid(new Scanner("""
+                a 0 3
+                b 0 3
+                c 0 3
+                =
+                a 0 = 1
+                """));
+        final CandidateDomains instance = grid.getDomains();
+        final KCell near = grid.getCell(1, 1);
+        final KCell far = grid.getCell(2, 2);
+        assertAll(
+                () -> assertEquals(9, instance.getMaxNumber(), "max number"),
+                () -> assertFalse(instance.isCandidate(near, 1), "placed number"),
+                () -> assertTrue(instance.isCandidate(near, 2), "next to 1"),
+                () -> assertFalse(instance.isCandidate(far, 2), "away from 1"),
+                () -> assertTrue(instance.isCandidate(far, 3), "free number"),
+                () -> assertEquals(3, instance.getCandidateCellCount(2), "cells for 2"),
+                () -> assertEquals(0, instance.getCandidateCount(grid.getCell(0, 0)),
+                        "filled cell"),
+                () -> assertEquals(2, instance.nextCandidate(near, 0), "first candidate")
+        );
+    }
+
+    /**
+     * Tests that the domains match the candidate rule under a sequence of
+     * pseudo-random changes, and again while those changes are undone.
+     */
+    @Test
+    public void testChangeAndUndo() {
+        System.out.println("CandidateDomains, change and undo");
+        final KGrid grid = new KGrid(new Scanner("""
+                a 0 4
+                b 0 4
+                c 0 4
+                """));
+        final CandidateDomains instance = grid.getDomains();
+        final Random random = new Random(11);
+        final Deque<int[]> undo = new ArrayDeque<>();
+        for (int i = 0; i != 150; ++i) {
+            final KCell cell = grid.getCell(random.nextInt(3), random.nextInt(4));
+            undo.push(new int[] {cell.getId(), cell.getState()});
+            cell.setState(random.nextInt(14));
+            assertDomains(grid, instance, "after step " + i);
+        }
+        while (!undo.isEmpty()) {
+            final int[] change = undo.pop();
+            grid.getCellById(change[0]).setState(change[1]);
+            assertDomains(grid, instance, "after undo to depth " + undo.size());
+        }
+        assertEquals(12, instance.getCandidateCellCount(5), "empty grid");
+    }
+
+    /**
+     * Tests that the domains are only built on request, and that after
+     * release they are no longer updated, and are rebuilt on the next request.
+     */
+    @Test
+    public void testLazyAndRelease() {
+        System.out.println("CandidateDomains, lazy and release");
+        final KGrid grid = new KGrid(new Scanner("""
+                a 0 3
+                b 0 3
+                c 0 3
+                """));
+        final boolean builtEagerly = grid.hasDomains();
+        final CandidateDomains first = grid.getDomains();
+        final boolean builtOnRequest = grid.hasDomains();
+        grid.releaseDomains();
+        final boolean keptAfterRelease = grid.hasDomains();
+        grid.getCell(0, 0).setState(1);
+        final CandidateDomains second = grid.getDomains();
+        assertAll(
+                () -> assertFalse(builtEagerly, "before request"),
+                () -> assertTrue(builtOnRequest, "after request"),
+                () -> assertFalse(keptAfterRelease, "after release"),
+                () -> assertTrue(first.isCandidate(grid.getCell(0, 0), 1), "released"),
+                () -> assertNotSame(first, second, "rebuilt"),
+                () -> assertDomains(grid, second, "rebuilt")
+        );
+    }
+
+    /**
+     * Checks each cell and number of a grid against the candidate rule.
+     */
+    private static void assertDomains(final KGrid grid, final CandidateDomains domains,
+            final String message) {
+        for (KCell cell : grid) {
+            for (int n = 1; n <= domains.getMaxNumber(); ++n) {
+                final boolean expected = cell.isEmpty()
+                        && grid.getCellWithNumber(n) == null
+                        && isNextToHolder(grid, cell, n - 1)
+                        && isNextToHolder(grid, cell, n + 1);
+                assertEquals(expected, domains.isCandidate(cell, n),
+                        message + ", cell " + cell.getId() + ", number " + n);
+                assertEquals(expected, domains.getCandidateCells(n).get(cell.getId()),
+                        message + ", number " + n + ", cell " + cell.getId());
+            }
+        }
+    }
+
+    /**
+     * Returns whether a number is unplaced or held next to a given cell.
+     */
+    private static boolean isNextToHolder(final KGrid grid, final KCell cell,
+            final int number) {
+        final KCell holder = grid.getCellWithNumber(number);
+        return holder == null
+                || Math.abs(holder.getLocation().getRow() - cell.getLocation().getRow()) <= 1
+                && Math.abs(holder.getLocation().getColumn()
+                        - cell.getLocation().getColumn()) <= 1;
+    }
+
+}
@@ -0,0 +1,43 @@
+package ypa.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class {@code DistanceWindows}.
+ */
+public class DistanceWindowsTest {
+
+    /**
+     * Tests the windows between two given numbers, and their update
+     * when a number is placed and removed in between.
+     */
+    @Test
+    public void testIsReachable() {
+        System.out.println("isReachable");
+        final KGrid grid = new KGrid(new Scanner("""
+                a 0 6
+                b 0 6
+                =
+                a 0 = 1
+                a 4 = 5
+                """));
+        final DistanceWindows instance = grid.getWindows();
+        assertAll(
+                () -> assertTrue(instance.isReachable(grid.getCell(1, 2), 3), "midway"),
+                () -> assertFalse(instance.isReachable(grid.getCell(1, 3), 3), "too far from 1"),
+                () -> assertFalse(instance.isReachable(grid.getCell(0, 1), 3), "too far from 5"),
+                () -> assertTrue(instance.isReachable(grid.getCell(1, 5), 6), "after last"),
+                () -> assertFalse(instance.isReachable(grid.getCell(1, 0), 6), "far after last"),
+                () -> assertFalse(instance.isReachable(grid.getCell(1, 2), 13), "out of range")
+        );
+        grid.getCell(1, 0).setState(4);
+        assertFalse(instance.isReachable(grid.getCell(1, 2), 3), "too far from placed 4");
+        grid.getCell(1, 0).setState(KCell.EMPTY);
+        assertTrue(instance.isReachable(grid.getCell(1, 2), 3), "4 removed again");
+    }
+
+}
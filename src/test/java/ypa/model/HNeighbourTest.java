@@ -70,4 +70,78 @@ public class HNeighbourTest {
         assertEquals(false, grid.isValid(), 
                 "Expected false due to '3' and '4' not being neighbors");
     }
+
+    /**
+     * Test of the adjacency table, skipping blocked cells and grid borders.
+     */
+    @Test
+    public void testAdjacency() {
+        System.out.println("adjacency");
+        // row b has a blocked cell in column 1
+        KGrid grid = new KGrid(new Scanner("""
+                           a 0 3
+                           b 0 1
+                           b 2 1
+                           c 0 3
+                           """));
+        KCell corner = grid.getCell(0, 0);
+        KCell blocked = grid.getCell(1, 1);
+        KCell side = grid.getCell(1, 0);
+        assertAll(
+            () -> assertTrue(blocked.isBlocked(), "blocked cell"),
+            () -> assertEquals(0, grid.getNeighbourEnd(blocked.getId())
+                    - grid.getNeighbourStart(blocked.getId()), "blocked cell has no row"),
+            () -> assertEquals(2, grid.getNeighbourEnd(corner.getId())
+                    - grid.getNeighbourStart(corner.getId()), "corner neighbours"),
+            () -> assertEquals(4, grid.getNeighbourEnd(side.getId())
+                    - grid.getNeighbourStart(side.getId()), "side neighbours"),
+            () -> assertEquals(grid.getCell(0, 1).getId(),
+                    grid.getNeighbourId(grid.getNeighbourStart(corner.getId())),
+                    "first neighbour of corner")
+        );
+    }
+
+    /**
+     * Test that the total and state counts agree with the neighbouring cells
+     * given by the iterator, after setting the central cell and others.
+     */
+    @Test
+    public void testCountsMatchIterator() {
+        System.out.println("getTotal and getStateCount");
+        KGrid grid = new KGrid(new Scanner("""
+                           a 0 3
+                           b 0 3
+                           c 0 3
+                           """));
+        KCell center = grid.getCell(1, 1);
+        HNeighbour instance = null;
+        for (AbstractGroup group : center.groups()) {
+            if (group instanceof HNeighbour neighbour && neighbour.getCell() == center) {
+                instance = neighbour;
+            }
+        }
+        center.setState(5);
+        grid.getCell(0, 0).setState(4);
+        grid.getCell(2, 1).setState(6);
+        center.setState(7);
+        int total = 0;
+        int empty = 0;
+        for (KCell cell : instance) {
+            total += cell.getState();
+            if (cell.isEmpty()) {
+                ++empty;
+            }
+        }
+        final HNeighbour group = instance;
+        final int expectedTotal = total;
+        final int expectedEmpty = empty;
+        assertAll(
+            () -> assertEquals(8, group.getCount(), "count"),
+            () -> assertEquals(10, expectedTotal, "total of iterated cells"),
+            () -> assertEquals(expectedTotal, group.getTotal(), "total"),
+            () -> assertEquals(expectedEmpty, group.getStateCount(KCell.EMPTY), "empty"),
+            () -> assertEquals(1, group.getStateCount(4), "state 4"),
+            () -> assertEquals(0, group.getStateCount(7), "central cell excluded")
+        );
+    }
 }
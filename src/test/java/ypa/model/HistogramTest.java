@@ -59,4 +59,19 @@ public class HistogramTest {
         }
     }
 
+    /**
+     * Tests adjust method for states beyond the reserved range.
+     */
+    @Test
+    public void testAdjustBeyondReserved() {
+        System.out.println("adjust, beyond reserved range");
+        instance = new Histogram(3);
+        assertEquals(0, instance.get(100), "Count for unreserved state");
+        instance.adjust(100, 2);
+        instance.adjust(3, 1);
+        assertEquals(2, instance.get(100), "Count for state 100");
+        assertEquals(1, instance.get(3), "Count for state 3");
+        assertEquals(0, instance.get(99), "Count for state 99");
+    }
+
 }
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import ypa.model.KCell;
 import ypa.model.KGrid;
 
+import java.util.Random;
 import java.util.Scanner;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -83,4 +84,161 @@ public class KGridTest {
         );
     }
 
+    /**
+     * Tests the number index, under setting and clearing cells.
+     */
+    @Test
+    public void testGetCellWithNumber() {
+        System.out.println("getCellWithNumber");
+        final KGrid instance = new KGrid(new Scanner("""
+                a 0 3
+                b 0 3
+                =
+                a 1 = 2
+                """));
+        final KCell given = instance.getCell(0, 1);
+        final KCell cell = instance.getCell(1, 2);
+        assertSame(given, instance.getCellWithNumber(2), "given number");
+        assertNull(instance.getCellWithNumber(1), "absent number");
+        assertEquals(1, instance.getPlacedCount(), "placed count");
+        cell.setState(2);
+        assertSame(given, instance.getCellWithNumber(2), "duplicate keeps first");
+        given.setState(KCell.EMPTY);
+        assertSame(cell, instance.getCellWithNumber(2), "duplicate takes over");
+        cell.setState(KCell.EMPTY);
+        assertAll(
+                () -> assertNull(instance.getCellWithNumber(2), "cleared number"),
+                () -> assertEquals(0, instance.getPlacedCount(), "placed count after clear")
+        );
+    }
+
+    /**
+     * Tests that the violation count matches the invalid neighbour groups,
+     * under a sequence of pseudo-random changes.
+     */
+    @Test
+    public void testGetViolationCount() {
+        System.out.println("getViolationCount");
+        final KGrid instance = new KGrid(new Scanner("""
+                a 0 3
+                b 0 3
+                c 0 3
+                """));
+        final Random random = new Random(58);
+        for (int i = 0; i != 200; ++i) {
+            final KCell cell = instance.getCell(random.nextInt(3), random.nextInt(3));
+            cell.setState(random.nextInt(10));
+            final int invalid = countInvalidNeighbours(instance);
+            assertEquals(invalid, instance.getViolationCount(), "violations after step " + i);
+            assertEquals(invalid == 0, instance.isValid(), "isValid after step " + i);
+        }
+    }
+
+    /**
+     * Tests that the violation count is right when several cells change
+     * between validations, and after clearing the grid.
+     */
+    @Test
+    public void testGetViolationCountBatched() {
+        System.out.println("getViolationCount, batched changes");
+        final KGrid instance = new KGrid(new Scanner("""
+                a 0 4
+                b 0 4
+                c 0 4
+                """));
+        final Random random = new Random(2024);
+        for (int i = 0; i != 100; ++i) {
+            if (i % 25 == 24) {
+                instance.clear();
+            }
+            for (int j = random.nextInt(5); j != 0; --j) {
+                final KCell cell = instance.getCell(random.nextInt(3), random.nextInt(4));
+                cell.setState(random.nextInt(13));
+            }
+            assertEquals(countInvalidNeighbours(instance), instance.getViolationCount(),
+                    "violations after batch " + i);
+        }
+    }
+
+    /**
+     * Tests that the state hash depends only on the state,
+     * not on the order of changes, and is the same for equal grids.
+     */
+    @Test
+    public void testGetStateHash() {
+        System.out.println("getStateHash");
+        final String descriptor = """
+                a 0 3
+                b 0 3
+                """;
+        final KGrid instance = new KGrid(new Scanner(descriptor));
+        final KGrid other = new KGrid(new Scanner(descriptor));
+        assertEquals(0L, instance.getStateHash(), "empty grid");
+        instance.getCell(0, 0).setState(1);
+        instance.getCell(1, 1).setState(2);
+        final long hash = instance.getStateHash();
+        other.getCell(1, 1).setState(5);
+        other.getCell(1, 1).setState(2);
+        other.getCell(0, 0).setState(1);
+        assertEquals(hash, other.getStateHash(), "same state, other order");
+        other.getCell(0, 0).setState(2);
+        assertNotEquals(hash, other.getStateHash(), "different state");
+        instance.clear();
+        assertEquals(0L, instance.getStateHash(), "cleared grid");
+    }
+
+    /**
+     * Tests verifying complete paths, of the grid and of given states.
+     */
+    @Test
+    public void testIsCompletePath() {
+        System.out.println("isCompletePath");
+        final KGrid instance = new KGrid(new Scanner("""
+                a 0 3
+                b 0 3
+                c 0 3
+                """));
+        final boolean empty = instance.isCompletePath();
+        final int[] snake = {1, 2, 3, 6, 5, 4, 7, 8, 9};
+        for (int id = 0; id != snake.length; ++id) {
+            instance.getCellById(id).setState(snake[id]);
+        }
+        final int[] states = new int[(instance.getRowCount() + 1) * instance.getColumnCount()];
+        for (KCell cell : instance) {
+            states[cell.getId()] = cell.getState();
+        }
+        final int[] swapped = states.clone();
+        swapped[0] = 2;
+        swapped[1] = 1;
+        final int[] duplicate = states.clone();
+        duplicate[8] = 8;
+        final int[] partial = states.clone();
+        partial[4] = KCell.EMPTY;
+        assertAll(
+                () -> assertFalse(empty, "empty grid"),
+                () -> assertTrue(instance.isCompletePath(), "solved grid"),
+                () -> assertTrue(instance.isCompletePath(states), "solved states"),
+                () -> assertFalse(instance.isCompletePath(swapped), "2 and 3 apart"),
+                () -> assertFalse(instance.isCompletePath(duplicate), "duplicate"),
+                () -> assertFalse(instance.isCompletePath(partial), "empty cell"),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> instance.isCompletePath(new int[1]), "wrong length")
+        );
+    }
+
+    /**
+     * Counts the invalid neighbour groups in a grid, by checking each one.
+     */
+    private static int countInvalidNeighbours(final KGrid grid) {
+        int invalid = 0;
+        for (KCell cell : grid) {
+            for (AbstractGroup group : cell.groups()) {
+                if (group instanceof HNeighbour && !group.isValid()) {
+                    ++invalid;
+                }
+            }
+        }
+        return invalid;
+    }
+
 }
\ No newline at end of file
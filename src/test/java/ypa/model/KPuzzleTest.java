@@ -0,0 +1,44 @@
+package ypa.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class {@code KPuzzle}.
+ */
+public class KPuzzleTest {
+
+    /**
+     * Tests the copy constructor: the copy has the same state,
+     * and changes to it do not affect the original.
+     */
+    @Test
+    public void testCopy() {
+        System.out.println("KPuzzle copy");
+        final KPuzzle original = new KPuzzle(new Scanner("""
+                a 0 3
+                b 1 2
+                =
+                a 0 = 1
+                """), "Test");
+        original.getCell(1, 1).setState(2);
+        final KPuzzle instance = new KPuzzle(original);
+        assertAll(
+                () -> assertEquals(original.toString(), instance.toString(), "toString"),
+                () -> assertEquals(original.getStateHash(), instance.getStateHash(), "hash"),
+                () -> assertEquals(original.getMaxNumber(), instance.getMaxNumber(), "max"),
+                () -> assertTrue(instance.getCell(0, 0).getLockState(), "given locked"),
+                () -> assertFalse(instance.getCell(1, 1).getLockState(), "set unlocked"),
+                () -> assertSame(instance.getCell(1, 1), instance.getCellWithNumber(2),
+                        "number index"),
+                () -> assertTrue(instance.isValid(), "valid"),
+                () -> assertFalse(instance.hasDomains(), "domains not built")
+        );
+        instance.getCell(0, 2).setState(3);
+        assertTrue(original.getCell(0, 2).isEmpty(), "original unchanged");
+    }
+
+}
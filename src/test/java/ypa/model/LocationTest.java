@@ -7,7 +7,9 @@ import ypa.model.Location;
 
 import java.util.Scanner;
 
+import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
 /**
  * Test cases for {@code Location}.
@@ -99,4 +101,19 @@ public class LocationTest {
         assertEquals(expResult, result, "toString");
     }
 
+    /**
+     * Test of equals and hashCode methods, of class Location.
+     */
+    @Test
+    public void testEquals() {
+        System.out.println("equals");
+        Location instance = new Location(1, 2);
+        assertAll(
+            () -> assertEquals(new Location(1, 2), instance, "same coordinates"),
+            () -> assertEquals(new Location(1, 2).hashCode(), instance.hashCode(), "hashCode"),
+            () -> assertNotEquals(new Location(2, 1), instance, "swapped coordinates"),
+            () -> assertNotEquals(instance, null, "null")
+        );
+    }
+
 }
@@ -0,0 +1,89 @@
+package ypa.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the TranspositionTable class.
+ */
+public class TranspositionTableTest {
+
+    /** A key, which shares its slot with {@link #OTHER} only in a one-slot table. */
+    private static final long KEY = 0x0000_0001_1234_5678L;
+
+    /** Another key. */
+    private static final long OTHER = 0x0000_0002_8765_4321L;
+
+    /**
+     * Tests the capacity derived from the memory to use.
+     */
+    @Test
+    public void testGetCapacity() {
+        System.out.println("getCapacity");
+        assertAll(
+                () -> assertEquals(1, new TranspositionTable(16,
+                        TranspositionTable.Replacement.AGE).getCapacity(), "one slot"),
+                () -> assertEquals(4, new TranspositionTable(100,
+                        TranspositionTable.Replacement.AGE).getCapacity(), "rounded down"),
+                () -> assertEquals(1 << 16, new TranspositionTable().getCapacity(), "default"),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> new TranspositionTable(8, TranspositionTable.Replacement.AGE),
+                        "too small"));
+    }
+
+    /**
+     * Tests recording and looking up failed states.
+     */
+    @Test
+    public void testRecordFailed() {
+        System.out.println("recordFailed");
+        final TranspositionTable table = new TranspositionTable();
+        final boolean before = table.isFailed(KEY);
+        table.recordFailed(KEY, 5);
+        table.recordFailed(0, 9);
+        assertAll(
+                () -> assertFalse(before, "before"),
+                () -> assertTrue(table.isFailed(KEY), "recorded"),
+                () -> assertTrue(table.isFailed(0), "zero key"),
+                () -> assertFalse(table.isFailed(KEY + 1), "other key"));
+        table.clear();
+        assertFalse(table.isFailed(KEY), "cleared");
+    }
+
+    /**
+     * Tests depth-preferred replacement within and across generations.
+     */
+    @Test
+    public void testReplacementByDepth() {
+        System.out.println("replacement by depth");
+        final TranspositionTable table = new TranspositionTable(16,
+                TranspositionTable.Replacement.DEPTH);
+        table.recordFailed(KEY, 5);
+        table.recordFailed(OTHER, 3);
+        final boolean kept = table.isFailed(KEY) && !table.isFailed(OTHER);
+        table.recordFailed(OTHER, 7);
+        final boolean deeper = table.isFailed(OTHER) && !table.isFailed(KEY);
+        table.newGeneration();
+        table.recordFailed(KEY, 1);
+        assertAll(
+                () -> assertTrue(kept, "deeper entry kept"),
+                () -> assertTrue(deeper, "replaced by deeper entry"),
+                () -> assertTrue(table.isFailed(KEY), "older generation replaced"));
+    }
+
+    /**
+     * Tests age-based replacement.
+     */
+    @Test
+    public void testReplacementByAge() {
+        System.out.println("replacement by age");
+        final TranspositionTable table = new TranspositionTable(16,
+                TranspositionTable.Replacement.AGE);
+        table.recordFailed(KEY, 5);
+        table.recordFailed(OTHER, 3);
+        assertAll(
+                () -> assertTrue(table.isFailed(OTHER), "newest kept"),
+                () -> assertFalse(table.isFailed(KEY), "older replaced"));
+    }
+}
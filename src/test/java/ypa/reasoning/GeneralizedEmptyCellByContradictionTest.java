@@ -6,10 +6,12 @@ import org.junit.jupiter.api.Test;
 import ypa.command.CompoundCommand;
 import ypa.model.KCell;
 import ypa.model.KPuzzle;
+import ypa.model.TranspositionTable;
 import ypa.reasoning.EmptyCellReasoner;
 import ypa.reasoning.EntryWithOneEmptyCell;
 import ypa.reasoning.GeneralizedEmptyCellByContradiction;
 import ypa.reasoning.Reasoner;
+import ypa.solvers.BacktrackSolver;
 
 import java.util.Scanner;
 
@@ -75,4 +77,63 @@ public class GeneralizedEmptyCellByContradictionTest {
     // );
     // }
 
+    /** A puzzle with only its corners given. */
+    private static final String CORNERS = """
+            a 0 3
+            b 0 3
+            c 0 3
+            =
+            a 0 = 1
+            c 2 = 9
+            """;
+
+    /**
+     * Tests that a table of failed states does not change the reasoning.
+     */
+    @Test
+    public void testApplyWithTable() {
+        System.out.println("apply with table");
+        final KPuzzle plain = new KPuzzle(new Scanner(CORNERS), "Test");
+        final KPuzzle tabled = new KPuzzle(new Scanner(CORNERS), "Test");
+        final GeneralizedEmptyCellByContradiction tabling =
+                new GeneralizedEmptyCellByContradiction(tabled);
+        tabling.setTranspositionTable(new TranspositionTable());
+        final CompoundCommand expected = new GeneralizedEmptyCellByContradiction(plain).apply();
+        final CompoundCommand result = tabling.apply();
+        assertAll(
+                () -> assertEquals(expected == null, result == null, "contradiction"),
+                () -> assertEquals(plain.gridAsString(), tabled.gridAsString(), "same cells"));
+    }
+
+    /**
+     * Tests sharing a table of failed states between a solver and a reasoner.
+     */
+    @Test
+    public void testSharedTable() {
+        System.out.println("shared table");
+        final KPuzzle plain = new KPuzzle(new Scanner(CORNERS), "Test");
+        final KPuzzle tabled = new KPuzzle(new Scanner(CORNERS), "Test");
+        final BacktrackSolver solver = new BacktrackSolver(plain,
+                new GeneralizedEmptyCellByContradiction(plain,
+                        new BasicEmptyCellByContradiction(plain)));
+        final GeneralizedEmptyCellByContradiction prober =
+                new GeneralizedEmptyCellByContradiction(tabled,
+                        new BasicEmptyCellByContradiction(tabled));
+        final BacktrackSolver tabling = new BacktrackSolver(tabled, prober);
+        final TranspositionTable table = new TranspositionTable();
+        prober.setTranspositionTable(table);
+        tabling.setTranspositionTable(table);
+        solver.setBackjumping(false);
+        tabling.setBackjumping(false);
+        final boolean expected = solver.solve();
+        final boolean result = tabling.solve();
+        assertAll(
+                () -> assertTrue(expected, "solved without table"),
+                () -> assertTrue(result, "solved with table"),
+                () -> assertEquals(plain.gridAsString(), tabled.gridAsString(),
+                        "same solution"),
+                () -> assertTrue(tabling.getNodeCount() <= solver.getNodeCount(),
+                        "no more nodes"));
+    }
+
 }
@@ -1,5 +1,7 @@
 package ypa.solvers;
 
+import ypa.command.Command;
+import ypa.model.CandidateDomains;
 import ypa.model.KPuzzle;
 import ypa.reasoning.BasicEmptyCellByContradiction;
 import ypa.reasoning.FixpointReasoner;
@@ -9,7 +11,13 @@ import ypa.solvers.BacktrackSolver;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CancellationException;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -65,6 +73,274 @@ public class BacktrackSolverTest {
                 + "BasicEmptyCellByContradiction and FixpointReasoner");
     }
 
+    /**
+     * Tests solving a puzzle with the most-constrained-cell and
+     * least-constraining-value orderings, without reasoner.
+     */
+    @Test
+    public void testSolveWithOrderings() {
+        System.out.println("solve with orderings");
+        puzzle = new KPuzzle(new Scanner("""
+                a 0 4
+                b 0 4
+                c 0 4
+                d 0 4
+                =
+                a 0 = 1
+                b 2 = 7
+                d 3 = 16
+                """), "Test");
+        BacktrackSolver solver = new BacktrackSolver(puzzle, null,
+                new MostConstrainedCellOrder(), new LeastConstrainingValueOrder());
+        boolean result = solver.solve();
+        System.out.println(puzzle.gridAsString());
+        assertAll(
+                () -> assertTrue(result, "return value"),
+                () -> assertTrue(puzzle.isSolved(), "puzzle solved"),
+                () -> assertEquals(13, solver.getCommands().size(), "commands size"));
+    }
+
+    /**
+     * Tests stepping through the search, inspecting it, and resuming it.
+     */
+    @Test
+    public void testStepAndResume() {
+        System.out.println("step and resume");
+        BacktrackSolver solver = new BacktrackSolver(puzzle, null);
+        for (int i = 0; i != 6; ++i) {
+            assertTrue(solver.step(), "step " + i);
+        }
+        assertAll(
+                () -> assertFalse(solver.isFinished(), "finished after steps"),
+                () -> assertEquals(3, solver.getDepth(), "depth after steps"),
+                () -> assertSame(puzzle.getCell(0, 0), solver.getBranchCell(0), "first branch"),
+                () -> assertEquals(3, solver.getCommands().size(), "commands after steps"));
+        final Collection<Command> early = solver.getCommands();
+        solver.pause();
+        final boolean paused = solver.resume();
+        final int pausedDepth = solver.getDepth();
+        boolean result = solver.resume();
+        assertAll(
+                () -> assertFalse(paused, "pending pause honoured"),
+                () -> assertEquals(3, pausedDepth, "depth after pause"),
+                () -> assertTrue(result, "return value"),
+                () -> assertTrue(solver.isFinished(), "finished"),
+                () -> assertTrue(puzzle.isSolved(), "puzzle solved"),
+                () -> assertEquals(9, solver.getCommands().size(), "commands size"),
+                () -> assertEquals(3, early.size(), "earlier commands unchanged"),
+                () -> assertFalse(solver.step(), "step after finish"));
+    }
+
+    /**
+     * Tests counting solutions with a limit, with and without reasoner,
+     * and solving afterwards.
+     */
+    @Test
+    public void testCountSolutions() {
+        System.out.println("countSolutions");
+        final KPuzzle square = new KPuzzle(new Scanner("""
+                a 0 2
+                b 0 2
+                """), "Test");
+        final String before = square.gridAsString();
+        final BacktrackSolver solver = new BacktrackSolver(square, null);
+        final BacktrackSolver reasoning = new BacktrackSolver(square,
+                new BasicEmptyCellByContradiction(square));
+        assertAll(
+                () -> assertEquals(24, solver.countSolutions(100), "all solutions"),
+                () -> assertEquals(24, reasoning.countSolutions(100), "with reasoner"),
+                () -> assertEquals(2, solver.countSolutions(2), "cut off"),
+                () -> assertFalse(solver.hasUniqueSolution(), "unique"),
+                () -> assertEquals(before, square.gridAsString(), "puzzle unchanged"),
+                () -> assertTrue(solver.solve(), "solve afterwards"));
+        final KPuzzle line = new KPuzzle(new Scanner("""
+                a 0 3
+                =
+                a 0 = 1
+                """), "Test");
+        assertTrue(new BacktrackSolver(line, null).hasUniqueSolution(), "unique line");
+    }
+
+    /**
+     * Tests counting after a finished search, which is abandoned first,
+     * and that an interrupted count is reported.
+     */
+    @Test
+    public void testCountSolutionsAfterSolveAndInterrupted() {
+        System.out.println("countSolutions, after solve and interrupted");
+        final KPuzzle square = new KPuzzle(new Scanner("""
+                a 0 2
+                b 0 2
+                """), "Test");
+        final String before = square.gridAsString();
+        final BacktrackSolver solver = new BacktrackSolver(square, null);
+        final boolean solved = solver.solve();
+        final int count = solver.countSolutions(100);
+        final String after = square.gridAsString();
+        final BacktrackSolver limited = new BacktrackSolver(square, null);
+        limited.setNodeLimit(3);
+        final BacktrackSolver cancelled = new BacktrackSolver(square, null);
+        cancelled.cancel();
+        assertAll(
+                () -> assertTrue(solved, "solved"),
+                () -> assertEquals(24, count, "count after solve"),
+                () -> assertEquals(before, after, "restored"),
+                () -> assertThrows(CancellationException.class,
+                        () -> limited.countSolutions(100), "node budget spent"),
+                () -> assertThrows(CancellationException.class,
+                        () -> cancelled.countSolutions(100), "cancelled"),
+                () -> assertEquals(before, square.gridAsString(), "restored when interrupted"));
+    }
+
+    /**
+     * Tests enumerating solutions lazily, taking only some of them,
+     * and taking all of them.
+     */
+    @Test
+    public void testSolutions() {
+        System.out.println("solutions");
+        final KPuzzle square = new KPuzzle(new Scanner("""
+                a 0 2
+                b 0 2
+                """), "Test");
+        final String before = square.gridAsString();
+        final BacktrackSolver solver = new BacktrackSolver(square, null);
+        final List<int[]> firstThree;
+        try (Stream<int[]> solutions = solver.solutions()) {
+            firstThree = solutions.limit(3).toList();
+        }
+        assertAll(
+                () -> assertEquals(3, firstThree.size(), "taken"),
+                () -> assertArrayEquals(new int[] {1, 2, 3, 4}, firstThree.get(0), "first"),
+                () -> assertArrayEquals(new int[] {1, 2, 4, 3}, firstThree.get(1), "second"),
+                () -> assertEquals(before, square.gridAsString(), "restored after close"),
+                () -> assertEquals(24, solver.solutions()
+                        .map(Arrays::toString).distinct().count(), "all distinct"),
+                () -> assertEquals(before, square.gridAsString(), "restored after end"));
+    }
+
+    /**
+     * Tests that a stream of solutions left neither exhausted nor closed is
+     * abandoned by the next search, which then stops at the first solution.
+     */
+    @Test
+    public void testSolutionsUnclosed() {
+        System.out.println("solutions, unclosed");
+        final KPuzzle square = new KPuzzle(new Scanner("""
+                a 0 2
+                b 0 2
+                """), "Test");
+        final BacktrackSolver solver = new BacktrackSolver(square, null);
+        final List<int[]> firstThree = solver.solutions().limit(3).toList();
+        final boolean solved = solver.solve();
+        final String solution = square.gridAsString();
+        solver.abandon();
+        final Iterator<int[]> pending = solver.solutions().iterator();
+        pending.next();
+        final boolean solvedAgain = solver.solve();
+        assertAll(
+                () -> assertEquals(3, firstThree.size(), "taken"),
+                () -> assertTrue(solved, "solved"),
+                () -> assertTrue(solver.isFinished(), "stopped at first solution"),
+                () -> assertTrue(solvedAgain, "solved again"),
+                () -> assertEquals(solution, square.gridAsString(), "first solution"),
+                () -> assertFalse(pending.hasNext(), "abandoned stream ends"));
+    }
+
+    /**
+     * Tests that the candidate domains used by the orders are kept across
+     * pauses and between solutions of an enumeration, and released when the
+     * search ends or the stream is closed.
+     */
+    @Test
+    public void testDomainsKeptDuringSearch() {
+        System.out.println("domains kept during search");
+        final String descriptor = """
+                a 0 3
+                b 0 3
+                c 0 3
+                """;
+        final KPuzzle square = new KPuzzle(new Scanner(descriptor), "Test");
+        final BacktrackSolver solver = new BacktrackSolver(square, null,
+                new MostConstrainedCellOrder(), ValueOrder.ASCENDING);
+        solver.setNodeLimit(2);
+        final boolean pausedResult = solver.solve();
+        final CandidateDomains paused = square.hasDomains() ? square.getDomains() : null;
+        solver.setNodeLimit(4);
+        solver.resume();
+        final CandidateDomains resumed = square.getDomains();
+        solver.setNodeLimit(Long.MAX_VALUE);
+        final boolean solved = solver.resume();
+        final boolean keptAfterSolve = square.hasDomains();
+        final KPuzzle other = new KPuzzle(new Scanner(descriptor), "Test");
+        final BacktrackSolver enumerator = new BacktrackSolver(other, null,
+                new MostConstrainedCellOrder(), ValueOrder.ASCENDING);
+        final CandidateDomains first;
+        final CandidateDomains second;
+        try (Stream<int[]> solutions = enumerator.solutions()) {
+            final Iterator<int[]> iterator = solutions.iterator();
+            iterator.next();
+            first = other.hasDomains() ? other.getDomains() : null;
+            iterator.next();
+            second = other.getDomains();
+        }
+        assertAll(
+                () -> assertFalse(pausedResult, "paused"),
+                () -> assertNotNull(paused, "kept while paused"),
+                () -> assertSame(paused, resumed, "not rebuilt on resume"),
+                () -> assertTrue(solved, "solved"),
+                () -> assertFalse(keptAfterSolve, "released after solve"),
+                () -> assertNotNull(first, "kept between solutions"),
+                () -> assertSame(first, second, "not rebuilt between solutions"),
+                () -> assertFalse(other.hasDomains(), "released on close"));
+    }
+
+    /**
+     * Tests that backjumping finds the same solution and the same number of
+     * solutions as chronological backtracking, visiting fewer nodes.
+     */
+    @Test
+    public void testBackjumping() {
+        System.out.println("backjumping");
+        final String corners = """
+                a 0 4
+                b 0 4
+                c 0 4
+                d 0 4
+                =
+                a 0 = 1
+                d 3 = 16
+                """;
+        final KPuzzle jumping = new KPuzzle(new Scanner(corners), "Test");
+        final KPuzzle chronological = new KPuzzle(new Scanner(corners), "Test");
+        final BacktrackSolver jumper = new BacktrackSolver(jumping, null);
+        final BacktrackSolver backtracker = new BacktrackSolver(chronological, null);
+        backtracker.setBackjumping(false);
+        final boolean result = jumper.solve();
+        backtracker.solve();
+        final String square = """
+                a 0 3
+                b 0 3
+                c 0 3
+                =
+                a 0 = 1
+                c 2 = 9
+                """;
+        final BacktrackSolver counter = new BacktrackSolver(
+                new KPuzzle(new Scanner(square), "Test"), null);
+        final BacktrackSolver chronologicalCounter = new BacktrackSolver(
+                new KPuzzle(new Scanner(square), "Test"), null);
+        chronologicalCounter.setBackjumping(false);
+        assertAll(
+                () -> assertTrue(result, "return value"),
+                () -> assertEquals(chronological.gridAsString(), jumping.gridAsString(),
+                        "same solution"),
+                () -> assertTrue(jumper.getNodeCount() < backtracker.getNodeCount(),
+                        "fewer nodes"),
+                () -> assertEquals(chronologicalCounter.countSolutions(1000),
+                        counter.countSolutions(1000), "same count"));
+    }
+
     private void testSolverWithReasoner(Reasoner reasoner, int expectedCommandSize,
             String message) {
         System.out.println(message);
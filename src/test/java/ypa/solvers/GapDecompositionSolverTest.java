@@ -0,0 +1,134 @@
+package ypa.solvers;
+
+import ypa.model.KPuzzle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the GapDecompositionSolver class.
+ */
+public class GapDecompositionSolverTest {
+
+    /** A row whose two gaps have disjoint regions. */
+    private static final String ROW = """
+            a 0 7
+            =
+            a 0 = 1
+            a 3 = 4
+            a 6 = 7
+            """;
+
+    /**
+     * Tests decomposing into components with disjoint regions.
+     */
+    @Test
+    public void testDecompose() {
+        System.out.println("decompose");
+        final KPuzzle puzzle = new KPuzzle(new Scanner(ROW), "Test");
+        final List<GapDecompositionSolver.Component> components =
+                new GapDecompositionSolver(puzzle).decompose();
+        assertAll(
+                () -> assertEquals(2, components.size(), "number of components"),
+                () -> assertEquals("{2, 3}", components.get(0).getNumbers().toString(),
+                        "numbers of first gap"),
+                () -> assertEquals("{1, 2}", components.get(0).getRegion().toString(),
+                        "region of first gap"),
+                () -> assertEquals("{5, 6}", components.get(1).getNumbers().toString(),
+                        "numbers of second gap"),
+                () -> assertEquals("{4, 5}", components.get(1).getRegion().toString(),
+                        "region of second gap"));
+    }
+
+    /**
+     * Tests solving independent gaps into one compound command.
+     */
+    @Test
+    public void testSolveIndependentGaps() {
+        testSolver(ROW, true, 1, "solve independent gaps");
+    }
+
+    /**
+     * Tests solving a puzzle whose gaps overlap.
+     */
+    @Test
+    public void testSolveWithGivens() {
+        testSolver("""
+                a 0 4
+                b 0 4
+                c 0 4
+                d 0 4
+                =
+                a 0 = 1
+                b 2 = 7
+                d 3 = 16
+                """, true, 1, "solve puzzle with givens");
+    }
+
+    /**
+     * Tests that an unsolvable puzzle is left unchanged.
+     */
+    @Test
+    public void testSolveUnsolvable() {
+        testSolver("""
+                a 0 3
+                =
+                a 1 = 1
+                """, false, 0, "solve unsolvable puzzle");
+    }
+
+    /**
+     * Tests that cancelling reaches the solver searching a component,
+     * which here would take very long to refute: a block of 36 cells with 1
+     * in a corner, and one cell out of reach of it.
+     */
+    @Test
+    public void testCancel() throws InterruptedException {
+        System.out.println("cancel while solving a component");
+        final KPuzzle puzzle = new KPuzzle(new Scanner("""
+                a 0 6
+                b 0 6
+                c 0 6
+                d 0 6
+                e 0 6
+                f 0 6
+                h 0 1
+                =
+                a 0 = 1
+                """), "Test");
+        final String before = puzzle.gridAsString();
+        final GapDecompositionSolver solver = new GapDecompositionSolver(puzzle);
+        final boolean[] result = {true};
+        final Thread searcher = new Thread(() -> result[0] = solver.solve());
+        searcher.setDaemon(true);
+        searcher.start();
+        Thread.sleep(200);
+        solver.cancel();
+        searcher.join(10_000);
+        assertAll(
+                () -> assertFalse(searcher.isAlive(), "stopped"),
+                () -> assertFalse(result[0], "not solved"),
+                () -> assertEquals(before, puzzle.gridAsString(), "puzzle unchanged"));
+    }
+
+    private void testSolver(final String descriptor, final boolean expResult,
+            final int expectedCommandSize, final String message) {
+        System.out.println(message);
+        final KPuzzle puzzle = new KPuzzle(new Scanner(descriptor), "Test");
+        final String before = puzzle.gridAsString();
+        final GapDecompositionSolver solver = new GapDecompositionSolver(puzzle);
+        final boolean result = solver.solve();
+        System.out.println(puzzle.gridAsString());
+        assertAll(
+                () -> assertEquals(expResult, result, "return value"),
+                () -> assertEquals(expResult, puzzle.isSolved(), "puzzle solved"),
+                () -> assertTrue(expResult || before.equals(puzzle.gridAsString()),
+                        "puzzle unchanged"),
+                () -> assertEquals(expectedCommandSize,
+                        solver.getCommands().size(), "commands size"));
+    }
+}
@@ -0,0 +1,72 @@
+package ypa.solvers;
+
+import ypa.model.KPuzzle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ParallelSolver class.
+ */
+public class ParallelSolverTest {
+
+    private static final String PUZZLE = """
+            a 0 4
+            b 0 4
+            c 0 4
+            d 0 4
+            =
+            a 0 = 1
+            b 2 = 7
+            d 3 = 16
+            """;
+
+    /**
+     * Tests solving a puzzle on a pool of several threads.
+     */
+    @Test
+    public void testSolve() {
+        System.out.println("parallel solve");
+        final KPuzzle puzzle = new KPuzzle(new Scanner(PUZZLE), "Test");
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final ParallelSolver solver = new ParallelSolver(puzzle, pool, 2,
+                    new MostConstrainedCellOrder(), ValueOrder.ASCENDING);
+            final boolean result = solver.solve();
+            System.out.println(puzzle.gridAsString());
+            assertAll(
+                    () -> assertTrue(result, "return value"),
+                    () -> assertTrue(puzzle.isSolved(), "puzzle solved"),
+                    () -> assertEquals(13, solver.getCommands().size(), "commands size"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests that an unsolvable puzzle, and a cancelled solver,
+     * leave the puzzle unchanged.
+     */
+    @Test
+    public void testSolveFails() {
+        System.out.println("parallel solve, failing");
+        final KPuzzle unsolvable = new KPuzzle(new Scanner("""
+                a 0 3
+                =
+                a 1 = 1
+                """), "Test");
+        final KPuzzle puzzle = new KPuzzle(new Scanner(PUZZLE), "Test");
+        final String before = puzzle.gridAsString();
+        final ParallelSolver cancelled = new ParallelSolver(puzzle);
+        cancelled.cancel();
+        assertAll(
+                () -> assertFalse(new ParallelSolver(unsolvable).solve(), "unsolvable"),
+                () -> assertFalse(cancelled.solve(), "cancelled"),
+                () -> assertEquals(before, puzzle.gridAsString(), "puzzle unchanged"),
+                () -> assertTrue(cancelled.getCommands().isEmpty(), "no commands"));
+    }
+}
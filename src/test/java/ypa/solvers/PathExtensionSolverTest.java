@@ -0,0 +1,115 @@
+package ypa.solvers;
+
+import ypa.model.KPuzzle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the PathExtensionSolver class.
+ */
+public class PathExtensionSolverTest {
+
+    /**
+     * Tests solving an empty puzzle.
+     */
+    @Test
+    public void testSolveEmpty() {
+        testSolver("""
+                a 0 3
+                b 0 3
+                c 0 3
+                """, true, 9, "solve empty puzzle");
+    }
+
+    /**
+     * Tests solving a puzzle with given numbers, which are jumped over.
+     */
+    @Test
+    public void testSolveWithGivens() {
+        testSolver("""
+                a 0 4
+                b 0 4
+                c 0 4
+                d 0 4
+                =
+                a 0 = 1
+                b 2 = 7
+                d 3 = 16
+                """, true, 13, "solve puzzle with givens");
+    }
+
+    /**
+     * Tests that an unsolvable puzzle is left unchanged.
+     */
+    @Test
+    public void testSolveUnsolvable() {
+        testSolver("""
+                a 0 3
+                =
+                a 1 = 1
+                """, false, 0, "solve unsolvable puzzle");
+    }
+
+    /**
+     * Tests counting solutions with a limit.
+     */
+    @Test
+    public void testCountSolutions() {
+        System.out.println("countSolutions");
+        final KPuzzle puzzle = new KPuzzle(new Scanner("""
+                a 0 2
+                b 0 2
+                """), "Test");
+        final String before = puzzle.gridAsString();
+        final PathExtensionSolver solver = new PathExtensionSolver(puzzle);
+        assertAll(
+                () -> assertEquals(24, solver.countSolutions(100), "all solutions"),
+                () -> assertEquals(3, solver.countSolutions(3), "cut off"),
+                () -> assertFalse(solver.hasUniqueSolution(), "unique"),
+                () -> assertEquals(before, puzzle.gridAsString(), "puzzle unchanged"),
+                () -> assertTrue(solver.solve(), "solve afterwards"));
+    }
+
+    /**
+     * Tests that the candidate domains are released after solving,
+     * unless they were kept before.
+     */
+    @Test
+    public void testDomainsReleased() {
+        System.out.println("domains released");
+        final String descriptor = """
+                a 0 3
+                b 0 3
+                c 0 3
+                """;
+        final KPuzzle puzzle = new KPuzzle(new Scanner(descriptor), "Test");
+        final KPuzzle kept = new KPuzzle(new Scanner(descriptor), "Test");
+        kept.getDomains();
+        assertAll(
+                () -> assertTrue(new PathExtensionSolver(puzzle).solve(), "solved"),
+                () -> assertFalse(puzzle.hasDomains(), "released"),
+                () -> assertTrue(new PathExtensionSolver(kept).solve(), "solved kept"),
+                () -> assertTrue(kept.hasDomains(), "kept"));
+    }
+
+    private void testSolver(final String descriptor, final boolean expResult,
+            final int expectedCommandSize, final String message) {
+        System.out.println(message);
+        final KPuzzle puzzle = new KPuzzle(new Scanner(descriptor), "Test");
+        final String before = puzzle.gridAsString();
+        final PathExtensionSolver solver = new PathExtensionSolver(puzzle);
+        final boolean result = solver.solve();
+        System.out.println(puzzle.gridAsString());
+        assertAll(
+                () -> assertEquals(expResult, result, "return value"),
+                () -> assertEquals(expResult, puzzle.isSolved(), "puzzle solved"),
+                () -> assertTrue(expResult || before.equals(puzzle.gridAsString()),
+                        "puzzle unchanged"),
+                () -> assertEquals(expectedCommandSize,
+                        solver.getCommands().size(), "commands size"));
+    }
+}
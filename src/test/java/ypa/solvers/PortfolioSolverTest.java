@@ -0,0 +1,118 @@
+package ypa.solvers;
+
+import ypa.model.KPuzzle;
+import ypa.reasoning.BasicEmptyCellByContradiction;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the PortfolioSolver class.
+ */
+public class PortfolioSolverTest {
+
+    /**
+     * Tests racing a strategy that never finishes against ones that do.
+     */
+    @Test
+    public void testSolve() {
+        System.out.println("portfolio solve");
+        final KPuzzle puzzle = new KPuzzle(new Scanner("""
+                a 0 3
+                b 0 3
+                c 0 3
+                =
+                a 0 = 1
+                """), "Test");
+        final PortfolioSolver solver = new PortfolioSolver(puzzle)
+                .addStrategy("stalling", copy -> new StallingSolver(copy))
+                .addStrategy("backtrack with reasoning", copy -> new BacktrackSolver(copy,
+                        new BasicEmptyCellByContradiction(copy)))
+                .addStrategy("path extension", PathExtensionSolver::new);
+        final boolean result = solver.solve();
+        System.out.println(puzzle.gridAsString());
+        assertAll(
+                () -> assertTrue(result, "return value"),
+                () -> assertTrue(puzzle.isSolved(), "puzzle solved"),
+                () -> assertNotEquals("stalling", solver.getWinner(), "winner"),
+                () -> assertNotNull(solver.getWinner(), "winner recorded"),
+                () -> assertEquals(8, solver.getCommands().size(), "commands size"));
+    }
+
+    /**
+     * Tests that an unsolvable puzzle is decided by the first strategy.
+     */
+    @Test
+    public void testSolveUnsolvable() {
+        System.out.println("portfolio solve, unsolvable");
+        final KPuzzle puzzle = new KPuzzle(new Scanner("""
+                a 0 3
+                =
+                a 1 = 1
+                """), "Test");
+        final PortfolioSolver solver = new PortfolioSolver(puzzle)
+                .addStrategy("stalling", copy -> new StallingSolver(copy))
+                .addStrategy("path extension", PathExtensionSolver::new);
+        assertAll(
+                () -> assertFalse(solver.solve(), "return value"),
+                () -> assertEquals("path extension", solver.getWinner(), "winner"),
+                () -> assertTrue(solver.getCommands().isEmpty(), "no commands"));
+    }
+
+    /**
+     * Tests that a strategy whose factory fails is skipped, and that losing
+     * strategies have stopped when solve returns.
+     */
+    @Test
+    public void testFailingFactory() {
+        System.out.println("portfolio solve, failing factory");
+        final KPuzzle puzzle = new KPuzzle(new Scanner("""
+                a 0 3
+                b 0 3
+                =
+                a 0 = 1
+                """), "Test");
+        final StallingSolver[] stalling = new StallingSolver[1];
+        final PortfolioSolver solver = new PortfolioSolver(puzzle)
+                .addStrategy("stalling", copy -> stalling[0] = new StallingSolver(copy))
+                .addStrategy("broken", copy -> {
+                    throw new IllegalStateException("broken");
+                })
+                .addStrategy("path extension", PathExtensionSolver::new);
+        final boolean result = solver.solve();
+        assertAll(
+                () -> assertTrue(result, "return value"),
+                () -> assertTrue(puzzle.isSolved(), "puzzle solved"),
+                () -> assertEquals("path extension", solver.getWinner(), "winner"),
+                () -> assertTrue(stalling[0].isStopped(), "loser stopped"));
+    }
+
+    /**
+     * Solver that only stops when cancelled.
+     */
+    private static final class StallingSolver extends AbstractSolver {
+
+        /** Whether solve has returned. */
+        private volatile boolean stopped;
+
+        StallingSolver(final KPuzzle puzzle) {
+            super(puzzle);
+        }
+
+        @Override
+        public boolean solve() {
+            while (!isCancelled()) {
+                Thread.onSpinWait();
+            }
+            stopped = true;
+            return false;
+        }
+
+        boolean isStopped() {
+            return stopped;
+        }
+    }
+}
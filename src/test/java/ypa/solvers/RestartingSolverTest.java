@@ -0,0 +1,87 @@
+package ypa.solvers;
+
+import ypa.model.KPuzzle;
+import ypa.model.TranspositionTable;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the RestartingSolver class.
+ */
+public class RestartingSolverTest {
+
+    /** A puzzle with only its first and last number given. */
+    private static final String CORNERS = """
+            a 0 5
+            b 0 5
+            c 0 5
+            d 0 5
+            e 0 5
+            =
+            a 0 = 1
+            e 4 = 25
+            """;
+
+    /**
+     * Tests the start of the Luby sequence.
+     */
+    @Test
+    public void testLuby() {
+        System.out.println("luby");
+        final long[] expected = {1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, 1};
+        final long[] result = new long[expected.length];
+        for (int i = 0; i != result.length; ++i) {
+            result[i] = RestartingSolver.luby(i + 1);
+        }
+        assertArrayEquals(expected, result, "Luby sequence");
+    }
+
+    /**
+     * Tests solving with small budgets, so that the search restarts,
+     * and that a fixed seed reproduces the search.
+     */
+    @Test
+    public void testSolveReproducible() {
+        System.out.println("solve reproducible");
+        final KPuzzle puzzle = new KPuzzle(new Scanner(CORNERS), "Test");
+        final KPuzzle again = new KPuzzle(new Scanner(CORNERS), "Test");
+        final RestartingSolver solver = new RestartingSolver(puzzle, 42, 1,
+                new TranspositionTable());
+        final RestartingSolver repeat = new RestartingSolver(again, 42, 1,
+                new TranspositionTable());
+        final boolean result = solver.solve();
+        repeat.solve();
+        assertAll(
+                () -> assertTrue(result, "return value"),
+                () -> assertTrue(puzzle.isSolved(), "puzzle solved"),
+                () -> assertTrue(solver.getRunCount() > 1, "restarted"),
+                () -> assertFalse(solver.getCommands().isEmpty(), "commands"),
+                () -> assertEquals(puzzle.gridAsString(), again.gridAsString(),
+                        "same solution"),
+                () -> assertEquals(solver.getRunCount(), repeat.getRunCount(), "same runs"),
+                () -> assertEquals(solver.getNodeCount(), repeat.getNodeCount(),
+                        "same nodes"));
+    }
+
+    /**
+     * Tests that an unsolvable puzzle is found so, and left unchanged.
+     */
+    @Test
+    public void testSolveUnsolvable() {
+        System.out.println("solve unsolvable");
+        final KPuzzle puzzle = new KPuzzle(new Scanner("""
+                a 0 3
+                =
+                a 1 = 1
+                """), "Test");
+        final String before = puzzle.gridAsString();
+        final RestartingSolver solver = new RestartingSolver(puzzle, 7);
+        assertAll(
+                () -> assertFalse(solver.solve(), "return value"),
+                () -> assertEquals(before, puzzle.gridAsString(), "puzzle unchanged"));
+    }
+}
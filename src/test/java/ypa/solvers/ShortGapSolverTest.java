@@ -0,0 +1,106 @@
+package ypa.solvers;
+
+import ypa.model.KPuzzle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ShortGapSolver class.
+ */
+public class ShortGapSolverTest {
+
+    /**
+     * Tests finding a path that has to wind through the whole region.
+     */
+    @Test
+    public void testFindPath() {
+        System.out.println("findPath");
+        final KPuzzle puzzle = new KPuzzle(new Scanner("""
+                a 0 3
+                b 0 3
+                c 0 3
+                =
+                a 0 = 1
+                c 2 = 9
+                """), "Test");
+        final BitSet region = new BitSet();
+        region.set(1, 8);
+        final boolean isShort = ShortGapSolver.isShortGap(puzzle, 2, 8, region);
+        final int[] path = new ShortGapSolver(puzzle, 2, 8, region).findPath();
+        assertAll(
+                () -> assertTrue(isShort, "short gap"),
+                () -> assertNotNull(path, "path found"));
+        final BitSet used = new BitSet();
+        for (int i = 0; i != path.length; ++i) {
+            used.set(path[i]);
+            puzzle.getCellById(path[i]).setState(2 + i);
+        }
+        assertAll(
+                () -> assertEquals(region, used, "region covered"),
+                () -> assertTrue(puzzle.isSolved(), "puzzle solved"));
+    }
+
+    /**
+     * Tests that no path is found when the upper anchor is out of step.
+     */
+    @Test
+    public void testFindPathNone() {
+        System.out.println("findPath none");
+        final KPuzzle puzzle = new KPuzzle(new Scanner("""
+                a 0 4
+                =
+                a 0 = 1
+                a 2 = 4
+                """), "Test");
+        final BitSet region = new BitSet();
+        region.set(1);
+        region.set(3);
+        assertNull(new ShortGapSolver(puzzle, 2, 3, region).findPath(), "no path");
+    }
+
+    /**
+     * Tests which gaps are short.
+     */
+    @Test
+    public void testIsShortGap() {
+        System.out.println("isShortGap");
+        final KPuzzle puzzle = new KPuzzle(new Scanner("""
+                a 0 3
+                b 0 3
+                c 0 3
+                =
+                a 0 = 1
+                a 2 = 3
+                """), "Test");
+        final BitSet region = new BitSet();
+        region.set(1);
+        assertAll(
+                () -> assertTrue(ShortGapSolver.isShortGap(puzzle, 2, 2, region), "bounded"),
+                () -> assertFalse(ShortGapSolver.isShortGap(puzzle, 4, 9, region),
+                        "open-ended"));
+    }
+
+    /**
+     * Tests the set of masks, across growth of its table.
+     */
+    @Test
+    public void testMaskSet() {
+        System.out.println("MaskSet");
+        final ShortGapSolver.MaskSet instance = new ShortGapSolver.MaskSet();
+        for (int i = 0; i != 100; ++i) {
+            instance.add(1L << (i % 64) | (long) i << 32);
+        }
+        instance.add(1L);
+        assertAll(
+                () -> assertTrue(instance.contains(1L), "first added"),
+                () -> assertTrue(instance.contains(1L << 63 | 63L << 32), "added"),
+                () -> assertTrue(instance.contains(1L << 35 | 99L << 32), "last added"),
+                () -> assertFalse(instance.contains(2L), "not added"),
+                () -> assertFalse(instance.contains(-1L), "all bits"));
+    }
+}